@@ -0,0 +1,130 @@
+package io.jenkins.plugins.luxair;
+
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import jenkins.util.SystemProperties;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the credentials resolved for image tag parameters for a short while, so page loads don't search all
+ * credentials visible to an item again for every parameter.
+ * <p>
+ * Entries are keyed by credential ID, context item and authentication, and dropped as soon as something that may
+ * hold credentials is saved: the global credentials, a folder or a user. Credentials coming from providers outside
+ * of Jenkins' configuration are picked up once their entries expire.
+ */
+class CredentialCache {
+
+    static final CredentialCache INSTANCE = new CredentialCache();
+
+    private static final Logger logger = Logger.getLogger(CredentialCache.class.getName());
+    private static final long TTL = TimeUnit.SECONDS.toMillis(
+        SystemProperties.getInteger(CredentialCache.class.getName() + ".ttl", 60));
+    private static final int MAX_SIZE = 1000;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // bumped on invalidation, so a lookup racing with a change doesn't cache what it found before the change
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the cached credential, using the lookup on a miss. Credentials not found are cached as well.
+     */
+    StandardUsernamePasswordCredentials get(String credentialId, Item context, String authentication,
+                                            Supplier<StandardUsernamePasswordCredentials> lookup) {
+        if (TTL <= 0) {
+            return lookup.get();
+        }
+
+        Key key = new Key(credentialId, context != null ? context.getFullName() : "", authentication);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.credential;
+        }
+
+        long lookupGeneration = generation.get();
+        StandardUsernamePasswordCredentials credential = lookup.get();
+        if (generation.get() != lookupGeneration) {
+            return credential;
+        }
+        if (entries.size() >= MAX_SIZE) {
+            entries.values().removeIf(e -> e.expiresAt <= now);
+            if (entries.size() >= MAX_SIZE) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(credential, now + TTL));
+        return credential;
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @Extension
+    public static class Invalidator extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            // the global credentials are saved by SystemCredentialsProvider, folder credentials by their folder
+            if (o instanceof SystemCredentialsProvider || o instanceof ItemGroup || o instanceof User) {
+                logger.fine(() -> "Dropping cached credentials after " + file + " changed");
+                INSTANCE.invalidateAll();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String credentialId;
+        private final String context;
+        private final String authentication;
+
+        private Key(String credentialId, String context, String authentication) {
+            this.credentialId = credentialId;
+            this.context = context;
+            this.authentication = authentication;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return credentialId.equals(key.credentialId) && context.equals(key.context)
+                && authentication.equals(key.authentication);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(credentialId, context, authentication);
+        }
+    }
+
+    private static final class Entry {
+        private final StandardUsernamePasswordCredentials credential;
+        private final long expiresAt;
+
+        private Entry(StandardUsernamePasswordCredentials credential, long expiresAt) {
+            this.credential = credential;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
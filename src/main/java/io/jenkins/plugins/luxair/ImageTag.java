@@ -1,26 +1,54 @@
 package io.jenkins.plugins.luxair;
 
-import hudson.util.VersionNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.jenkins.plugins.luxair.model.Ordering;
 import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagIndex;
+import io.jenkins.plugins.luxair.model.TagList;
 import kong.unirest.*;
+import kong.unirest.json.JSONArray;
 import kong.unirest.json.JSONObject;
+import org.apache.commons.io.input.CountingInputStream;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 
 public class ImageTag {
 
     private static final Logger logger = Logger.getLogger(ImageTag.class.getName());
-    private static final Interceptor errorInterceptor = new ErrorInterceptor();
+    private static final RegistryAuthCache authCache = RegistryAuthCache.INSTANCE;
+    private static final RegistryMetrics metrics = RegistryMetrics.INSTANCE;
+    private static final String MANIFEST_TYPES = String.join(", ",
+        "application/vnd.oci.image.index.v1+json",
+        "application/vnd.docker.distribution.manifest.list.v2+json",
+        "application/vnd.oci.image.manifest.v1+json",
+        "application/vnd.docker.distribution.manifest.v2+json");
+    private static final int MAX_BLOB_REDIRECTS = 3;
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
 
     private ImageTag() {
         throw new IllegalStateException("Utility class");
@@ -30,48 +58,376 @@ public class ImageTag {
                                                         String user, String password, Ordering ordering, boolean verifySsl) {
         ResultContainer<List<String>> container = new ResultContainer<>(Collections.emptyList());
 
-        String[] authService = getAuthService(registry);
-        String token = getAuthToken(authService, image, user, password);
-        ResultContainer<List<VersionNumber>> tags = getImageTagsFromRegistry(image, registry, authService[0], token, verifySsl);
+        ResultContainer<TagList> tags = getTagsFromRegistry(image, registry, user, password, verifySsl, null);
 
         if (tags.getErrorMsg().isPresent()) {
             container.setErrorMsg(tags.getErrorMsg().get());
             return container;
         }
 
-        ResultContainer<List<String>> filterTags = filterTags(tags.getValue(), filter, ordering);
+        ResultContainer<Pattern> pattern = compileFilter(filter);
+        if (pattern.getErrorMsg().isPresent()) {
+            container.setErrorMsg(pattern.getErrorMsg().get());
+            return container;
+        }
+
+        ResultContainer<List<String>> filterTags = filterTags(tags.getValue().getIndex(), pattern.getValue(), ordering, 0);
+        if (ordering == Ordering.CREATED_DESC && !filterTags.getErrorMsg().isPresent()) {
+            filterTags = orderByCreation(image, registry, user, password, verifySsl, filterTags.getValue(), 0);
+        }
         filterTags.getErrorMsg().ifPresent(container::setErrorMsg);
-        container.setValue(filterTags.getValue());
+        container.setValue(new ArrayList<>(filterTags.getValue()));
         return container;
     }
 
-    private static ResultContainer<List<String>> filterTags(List<VersionNumber> tags, String filter, Ordering ordering) {
-        ResultContainer<List<String>> container = new ResultContainer<>(Collections.emptyList());
-        logger.info("Ordering Tags according to: " + ordering);
+    /**
+     * Queries the registry for all tags of an image, unfiltered and in the order the registry returned them.
+     * If the registry reports the tags as unchanged since the {@code previous} list was fetched, that list is
+     * returned as is.
+     */
+    static ResultContainer<TagList> getTagsFromRegistry(String image, String registry, String user, String password,
+                                                        boolean verifySsl, TagList previous) {
+        ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+        return getTagsFromRegistry(RegistryClients.get().getClient(registry, verifySsl),
+            RegistryClients.get().getTagListClient(registry, verifySsl),
+            image, registry, user, password, config.getTagPageSize(), config.getMaxTagCount(), previous);
+    }
 
-        if (ordering == Ordering.DSC_VERSION || ordering == Ordering.ASC_VERSION) {
+    /**
+     * Queries the registry for all tags of an image through the given clients, the {@code tagListClient} for the
+     * tag list pages and the {@code client} for everything else.
+     */
+    static ResultContainer<TagList> getTagsFromRegistry(UnirestInstance client, UnirestInstance tagListClient,
+                                                        String image, String registry, String user, String password,
+                                                        int pageSize, int maxTags, TagList previous) {
+        try {
+            boolean cachedAuth = authCache.getChallenge(registry) != null;
+            String[] authService = getAuthService(client, registry);
+            String token = getAuthToken(client, registry, authService, image, user, password);
+            ResultContainer<TagList> tags = getImageTagsFromRegistry(tagListClient, image, registry, authService[0],
+                token, pageSize, maxTags, previous);
+
+            if (cachedAuth && tags.getErrorMsg().isPresent() && authCache.getChallenge(registry) == null) {
+                logger.fine("Cached authorization rejected by " + registry + ", retrying with a fresh token");
+                authService = getAuthService(client, registry);
+                token = getAuthToken(client, registry, authService, image, user, password);
+                tags = getImageTagsFromRegistry(tagListClient, image, registry, authService[0], token, pageSize,
+                    maxTags, previous);
+            }
+            return tags;
+        } catch (RegistryThrottle.RegistryUnavailableException e) {
+            logger.fine(e.getMessage());
+            ResultContainer<TagList> container = new ResultContainer<>(TagList.empty());
+            container.setErrorMsg(e.getMessage());
+            return container;
+        }
+    }
+
+    /**
+     * Sends a request within the limits of the {@link RegistryThrottle}, retrying it while the registry throttles.
+     */
+    private static <T> HttpResponse<T> send(String registry, Supplier<HttpResponse<T>> request)
+        throws RegistryThrottle.RegistryUnavailableException {
+        RegistryThrottle.Registry throttle = RegistryThrottle.INSTANCE.forRegistry(registry);
+        for (int attempt = 0; ; attempt++) {
+            throttle.acquire();
+            HttpResponse<T> response = null;
             try {
-                container.setValue(tags.stream()
-                   .filter(tag -> tag.toString().matches(filter))
-                   .sorted(ordering == Ordering.ASC_VERSION ? VersionNumber::compareTo : VersionNumber.DESCENDING)
-                   .map(VersionNumber::toString)
-                   .collect(Collectors.toList()));
-            } catch (Exception ignore) {
-                logger.warning("Unable to cast ImageTags to versions! Versioned Ordering is not supported for this images tags.");
-                container.setErrorMsg("Unable to cast ImageTags to versions! Versioned Ordering is not supported for this images tags.");
+                response = request.get();
+            } finally {
+                if (response == null) {
+                    // the call failed without a response, e.g. on a connection error
+                    throttle.onResponse(0, new Headers(), attempt);
+                }
             }
-        } else {
-            container.setValue(tags.stream()
-               .map(VersionNumber::toString)
-               .filter(tag -> tag.matches(filter))
-               .sorted(ordering == Ordering.NATURAL ? Collections.reverseOrder() : String::compareTo)
-               .collect(Collectors.toList()));
+            if (!throttle.onResponse(response.getStatus(), response.getHeaders(), attempt)) {
+                return response;
+            }
+            logger.fine("Retrying request to " + registry + " after HTTP status: " + response.getStatus());
+        }
+    }
+
+    static ResultContainer<Pattern> compileFilter(String filter) {
+        ResultContainer<Pattern> container = new ResultContainer<>(null);
+        try {
+            container.setValue(Pattern.compile(filter));
+        } catch (PatternSyntaxException e) {
+            logger.warning("Invalid tag filter pattern: " + filter);
+            container.setErrorMsg("Invalid tag filter pattern '" + filter + "': " + e.getDescription());
+        }
+        return container;
+    }
+
+    /**
+     * Filters the tags on their raw value and orders the surviving tags by the ranks precomputed in the index.
+     * With a positive {@code maxTags} only the first {@code maxTags} tags according to the ordering are kept.
+     */
+    static ResultContainer<List<String>> filterTags(TagIndex tags, Pattern filter, Ordering ordering, int maxTags) {
+        ResultContainer<List<String>> container = new ResultContainer<>(Collections.emptyList());
+        logger.fine("Ordering Tags according to: " + ordering);
+
+        try {
+            container.setValue(tags.select(filter, ordering, maxTags));
+        } catch (IllegalArgumentException ignore) {
+            logger.warning("Unable to cast ImageTags to versions! Versioned Ordering is not supported for this images tags.");
+            container.setErrorMsg("Unable to cast ImageTags to versions! Versioned Ordering is not supported for this images tags.");
+        }
+
+        return container;
+    }
+
+    /**
+     * Returns the selected tags with the default tag appended, if the selection was cut to {@code maxTags} without
+     * it. The default tag is only added if it matches the filter and the image has it, so it stays selectable.
+     */
+    static List<String> withDefaultTag(List<String> selected, TagIndex tags, Pattern filter, int maxTags,
+                                       String defaultTag) {
+        if (maxTags <= 0 || defaultTag == null || defaultTag.isEmpty() || selected.contains(defaultTag)
+            || !filter.matcher(defaultTag).matches() || !tags.contains(defaultTag)) {
+            return selected;
+        }
+        List<String> withDefault = new ArrayList<>(selected);
+        withDefault.add(defaultTag);
+        return withDefault;
+    }
+
+    /**
+     * Checks whether the image has the given tag with a single {@code HEAD} request for its manifest, without
+     * listing the tags. The value is only meaningful if there is no error message.
+     */
+    static ResultContainer<Boolean> hasTag(String image, String registry, String user, String password,
+                                           boolean verifySsl, String tag) {
+        return hasTag(RegistryClients.get().getClient(registry, verifySsl), image, registry, user, password, tag);
+    }
+
+    /**
+     * Like {@link #hasTag(String, String, String, String, boolean, String)}, sending the request with the given
+     * client, e.g. one created on an agent.
+     */
+    static ResultContainer<Boolean> hasTag(UnirestInstance client, String image, String registry, String user,
+                                           String password, String tag) {
+        ResultContainer<Boolean> container = new ResultContainer<>(false);
+        try {
+            boolean cachedAuth = authCache.getChallenge(registry) != null;
+            HttpResponse<Empty> response = headManifest(client, image, registry, user, password, tag);
+            if (cachedAuth && response.getStatus() == 401) {
+                logger.fine("Cached authorization rejected by " + registry + ", retrying with a fresh token");
+                authCache.invalidate(registry);
+                response = headManifest(client, image, registry, user, password, tag);
+            }
+
+            if (response.isSuccess() || response.getStatus() == 404) {
+                container.setValue(response.isSuccess());
+            } else {
+                metrics.forRegistry(registry).recordError(response.getStatus());
+                container.setErrorMsg("Unable to check tag " + tag + " of " + image + ", HTTP status: "
+                    + response.getStatus());
+            }
+        } catch (RegistryThrottle.RegistryUnavailableException e) {
+            logger.fine(e.getMessage());
+            container.setErrorMsg(e.getMessage());
+        }
+        return container;
+    }
+
+    private static HttpResponse<Empty> headManifest(UnirestInstance client, String image, String registry,
+                                                    String user, String password, String tag)
+        throws RegistryThrottle.RegistryUnavailableException {
+        String[] authService = getAuthService(client, registry);
+        String authorization = authService[0] + " " + getAuthToken(client, registry, authService, image, user,
+            password);
+        return send(registry, () -> client.head(registry + "/v2/" + image + "/manifests/" + tag)
+            .header("Authorization", authorization)
+            .header("Accept", MANIFEST_TYPES)
+            .asEmpty());
+    }
+
+    /**
+     * Orders the tags by the creation time of their images, most recent first. The tags are expected in descending
+     * natural order, and only the first of them (see {@link ManifestFetcher#getCandidateLimit(int)}) have their
+     * creation times fetched concurrently; the others follow in the given order. Tags without a creation time (e.g.
+     * signatures or other artifacts) come after the candidates. With a positive {@code maxTags} only the first
+     * {@code maxTags} tags are kept.
+     * <p>
+     * If not all creation times could be fetched, the partial order is returned along with an error message.
+     */
+    static ResultContainer<List<String>> orderByCreation(String image, String registry, String user, String password,
+                                                         boolean verifySsl, List<String> tags, int maxTags) {
+        ResultContainer<List<String>> container = new ResultContainer<>(Collections.emptyList());
+        if (tags.isEmpty()) {
+            return container;
         }
 
+        List<String> candidates = tags.subList(0, Math.min(tags.size(), ManifestFetcher.getCandidateLimit(maxTags)));
+        UnirestInstance client = RegistryClients.get().getClient(registry, verifySsl);
+        UnirestInstance blobClient = RegistryClients.get().getBlobClient(registry, verifySsl);
+        Map<String, Long> created;
+        long start = System.nanoTime();
+        try {
+            String[] authService = getAuthService(client, registry);
+            String authorization = authService[0] + " " + getAuthToken(client, registry, authService, image, user,
+                password);
+            created = ManifestFetcher.get().getCreationTimes(candidates,
+                tag -> getCreationTime(client, blobClient, image, registry, authorization, tag),
+                2L * ImageTagParameterConfiguration.get().getReadTimeout(), TimeUnit.SECONDS);
+        } catch (RegistryThrottle.RegistryUnavailableException e) {
+            logger.fine(e.getMessage());
+            container.setErrorMsg(e.getMessage());
+            container.setValue(limit(tags, maxTags));
+            return container;
+        } finally {
+            metrics.forRegistry(registry).getManifests().record(start);
+        }
+
+        if (created.size() < candidates.size()) {
+            container.setErrorMsg("Unable to determine the creation time of "
+                + (candidates.size() - created.size()) + " tags, they are listed last");
+        }
+        Comparator<String> newestFirst = Comparator.comparingLong(tag -> {
+            Long time = created.get(tag);
+            return time != null ? -time : Long.MAX_VALUE;
+        });
+        List<String> ordered = new ArrayList<>(tags.size());
+        ordered.addAll(candidates);
+        ordered.sort(newestFirst.thenComparing(Comparator.reverseOrder()));
+        ordered.addAll(tags.subList(candidates.size(), tags.size()));
+        container.setValue(limit(ordered, maxTags));
         return container;
     }
 
-    private static String[] getAuthService(String registry) {
+    private static List<String> limit(List<String> tags, int maxTags) {
+        return maxTags > 0 && tags.size() > maxTags ? tags.subList(0, maxTags) : tags;
+    }
+
+    /**
+     * Reads the creation time from the config of the image a tag points to. A manifest list or index resolves to
+     * its {@code linux/amd64} image, or its first image if there is none.
+     */
+    private static Long getCreationTime(UnirestInstance client, UnirestInstance blobClient, String image,
+                                        String registry, String authorization, String tag)
+        throws RegistryThrottle.RegistryUnavailableException {
+        String manifests = registry + "/v2/" + image + "/manifests/";
+        ManifestFetcher fetcher = ManifestFetcher.get();
+
+        // HEAD requests don't count as pulls, so only new digests cost a download
+        HttpResponse<Empty> head = send(registry, () -> client.head(manifests + tag)
+            .header("Authorization", authorization)
+            .header("Accept", MANIFEST_TYPES)
+            .asEmpty());
+        if (!head.isSuccess()) {
+            metrics.forRegistry(registry).recordError(head.getStatus());
+            return null;
+        }
+        String digest = emptyToNull(head.getHeaders().getFirst("Docker-Content-Digest"));
+        Long cached = digest != null ? fetcher.getCreated(digest) : null;
+        if (cached != null) {
+            return cached;
+        }
+
+        JSONObject manifest = getManifest(client, registry, manifests + (digest != null ? digest : tag), authorization);
+        if (manifest != null && manifest.has("manifests")) {
+            String child = selectPlatform(manifest.getJSONArray("manifests"));
+            manifest = child != null ? getManifest(client, registry, manifests + child, authorization) : null;
+        }
+        if (manifest == null || !manifest.has("config")) {
+            return null;
+        }
+        String configDigest = manifest.getJSONObject("config").optString("digest", "");
+        if (configDigest.isEmpty()) {
+            return null;
+        }
+        Long created = fetcher.getCreated(configDigest);
+        if (created == null) {
+            JSONObject config = getBlob(blobClient, registry, registry + "/v2/" + image + "/blobs/" + configDigest,
+                authorization);
+            created = config != null ? parseCreated(config.optString("created", "")) : null;
+            if (created == null) {
+                return null;
+            }
+            fetcher.putCreated(configDigest, created);
+        }
+        if (digest != null) {
+            fetcher.putCreated(digest, created);
+        }
+        return created;
+    }
+
+    private static JSONObject getManifest(UnirestInstance client, String registry, String url, String authorization)
+        throws RegistryThrottle.RegistryUnavailableException {
+        HttpResponse<JsonNode> response = send(registry, () -> client.get(url)
+            .header("Authorization", authorization)
+            .header("Accept", MANIFEST_TYPES)
+            .asJson());
+        if (!response.isSuccess() || response.getBody() == null) {
+            metrics.forRegistry(registry).recordError(response.getStatus());
+            return null;
+        }
+        return response.getBody().getObject();
+    }
+
+    /**
+     * Downloads a JSON blob, following redirects to the storage backend without the registry's authorization.
+     */
+    private static JSONObject getBlob(UnirestInstance blobClient, String registry, String url, String authorization)
+        throws RegistryThrottle.RegistryUnavailableException {
+        HttpResponse<JsonNode> response = send(registry, () -> blobClient.get(url)
+            .header("Authorization", authorization)
+            .asJson());
+        String location = url;
+        for (int redirects = 0; redirects < MAX_BLOB_REDIRECTS && response.getStatus() >= 300
+            && response.getStatus() < 400; redirects++) {
+            String next = response.getHeaders().getFirst("Location");
+            if (next == null || next.isEmpty()) {
+                break;
+            }
+            location = URI.create(location).resolve(next).toString();
+            response = blobClient.get(location).asJson();
+        }
+        if (!response.isSuccess() || response.getBody() == null) {
+            metrics.forRegistry(registry).recordError(response.getStatus());
+            return null;
+        }
+        return response.getBody().getObject();
+    }
+
+    private static String selectPlatform(JSONArray manifests) {
+        String first = null;
+        for (int i = 0; i < manifests.length(); i++) {
+            JSONObject entry = manifests.getJSONObject(i);
+            JSONObject platform = entry.optJSONObject("platform");
+            if (platform != null && "unknown".equals(platform.optString("os"))) {
+                // attestations attached to an index
+                continue;
+            }
+            if (first == null) {
+                first = entry.optString("digest", null);
+            }
+            if (platform != null && "linux".equals(platform.optString("os"))
+                && "amd64".equals(platform.optString("architecture"))) {
+                return entry.optString("digest", null);
+            }
+        }
+        return first;
+    }
+
+    private static Long parseCreated(String created) {
+        if (created.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(created).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String[] getAuthService(UnirestInstance client, String registry)
+        throws RegistryThrottle.RegistryUnavailableException {
+
+        String[] cached = authCache.getChallenge(registry);
+        if (cached != null) {
+            return cached;
+        }
 
         String[] rtn = new String[3];
         rtn[0] = ""; // type
@@ -79,11 +435,13 @@ public class ImageTag {
         rtn[2] = ""; // service
         String url = registry + "/v2/";
 
-        Unirest.config().reset();
-        Unirest.config().enableCookieManagement(false).interceptor(errorInterceptor);
-        String headerValue = Unirest.get(url).asEmpty()
-            .getHeaders().getFirst("Www-Authenticate");
-        Unirest.shutDown();
+        long start = System.nanoTime();
+        HttpResponse<Empty> probe = send(registry, () -> client.get(url).asEmpty());
+        metrics.forRegistry(registry).getAuthProbe().record(start);
+        if (probe.getStatus() == 0) {
+            metrics.forRegistry(registry).recordError(0);
+        }
+        String headerValue = probe.getHeaders().getFirst("Www-Authenticate");
 
         String type = "";
 
@@ -95,7 +453,8 @@ public class ImageTag {
 
         if (type.equalsIgnoreCase("Basic")) {
             rtn[0] = "Basic";
-            logger.info("AuthService: type=Basic");
+            logger.fine("AuthService: type=Basic");
+            authCache.putChallenge(registry, rtn);
 
             return rtn;
         }
@@ -107,7 +466,8 @@ public class ImageTag {
                 rtn[0] = "Bearer";
                 rtn[1] = m.group(1);
                 rtn[2] = m.group(2);
-                logger.info("AuthService: type=Bearer, realm=" + rtn[0] + ", service=" + rtn[1]);
+                logger.fine("AuthService: type=Bearer, realm=" + rtn[1] + ", service=" + rtn[2]);
+                authCache.putChallenge(registry, rtn);
             } else {
                 logger.warning("No AuthService available from " + url);
             }
@@ -121,7 +481,9 @@ public class ImageTag {
         return rtn;
     }
 
-    private static String getAuthToken(String[] authService, String image, String user, String password) {
+    private static String getAuthToken(UnirestInstance client, String registry, String[] authService, String image,
+                                       String user, String password)
+        throws RegistryThrottle.RegistryUnavailableException {
 
         String type = authService[0];
         String token = "";
@@ -139,20 +501,26 @@ public class ImageTag {
 
         String realm = authService[1];
         String service = authService[2];
+        String scope = "repository:" + image + ":pull";
+
+        String cached = authCache.getToken(realm, service, scope, user, password);
+        if (cached != null) {
+            return cached;
+        }
 
-        Unirest.config().reset();
-        Unirest.config().enableCookieManagement(false).interceptor(errorInterceptor);
-        GetRequest request = Unirest.get(realm);
+        GetRequest request = client.get(realm);
         if (!user.isEmpty() && !password.isEmpty()) {
-            logger.info("Basic authentication");
+            logger.fine("Basic authentication");
             request = request.basicAuth(user, password);
         } else {
-            logger.info("No basic authentication");
+            logger.fine("No basic authentication");
         }
-        HttpResponse<JsonNode> response = request
+        GetRequest tokenRequest = request
             .queryString("service", service)
-            .queryString("scope", "repository:" + image + ":pull")
-            .asJson();
+            .queryString("scope", scope);
+        long start = System.nanoTime();
+        HttpResponse<JsonNode> response = send(registry, tokenRequest::asJson);
+        metrics.forRegistry(registry).getTokenFetch().record(start);
         if (response.isSuccess()) {
             JSONObject jsonObject = response.getBody().getObject();
             if (jsonObject.has("token")) {
@@ -162,37 +530,206 @@ public class ImageTag {
             } else {
                 logger.warning("Token not received");
             }
-            logger.info("Token received");
+            logger.fine("Token received");
+            authCache.putToken(realm, service, scope, user, password, token,
+                jsonObject.has("expires_in") ? jsonObject.getInt("expires_in") : null,
+                jsonObject.has("issued_at") ? jsonObject.getString("issued_at") : null);
         } else {
-            logger.warning("Token not received");
+            logger.warning("Token not received, HTTP status: " + response.getStatusText());
+            metrics.forRegistry(registry).recordError(response.getStatus());
         }
-        Unirest.shutDown();
 
         return token;
     }
 
-    private static ResultContainer<List<VersionNumber>> getImageTagsFromRegistry(String image, String registry,
-                                                                                 String authType, String token, boolean verifySsl) {
-        ResultContainer<List<VersionNumber>> resultContainer = new ResultContainer<>(new ArrayList<>());
-        String url = registry + "/v2/" + image + "/tags/list";
+    private static ResultContainer<TagList> getImageTagsFromRegistry(UnirestInstance client, String image,
+                                                                     String registry, String authType, String token,
+                                                                     int pageSize, int maxTags, TagList previous)
+        throws RegistryThrottle.RegistryUnavailableException {
+        ResultContainer<TagList> resultContainer = new ResultContainer<>(TagList.empty());
+        List<String> tags = new ArrayList<>();
+        String url = registry + "/v2/" + image + "/tags/list?n=" + pageSize;
+        String etag = null;
+        String lastModified = null;
+        int pages = 0;
+        RegistryMetrics.Registry registryMetrics = metrics.forRegistry(registry);
+        long start = System.nanoTime();
+
+        while (url != null) {
+            final int remaining = maxTags - tags.size();
+            GetRequest request = client.get(url)
+                .header("Authorization", authType + " " + token)
+                .header("Accept-Encoding", ACCEPT_ENCODING);
+            if (pages == 0 && previous != null) {
+                // validators are only kept for single page lists, see below
+                if (previous.getEtag() != null) {
+                    request = request.header("If-None-Match", previous.getEtag());
+                }
+                if (previous.getLastModified() != null) {
+                    request = request.header("If-Modified-Since", previous.getLastModified());
+                }
+            }
+            GetRequest pageRequest = request;
+            HttpResponse<TagPage> response = send(registry,
+                () -> pageRequest.asObject(raw -> TagPage.parse(raw, remaining)));
+            TagPage page = response.getBody();
+
+            if (pages == 0 && previous != null && response.getStatus() == 304) {
+                registryMetrics.getTagList().record(start);
+                logger.fine("Tags of " + image + " not modified");
+                resultContainer.setValue(previous);
+                return resultContainer;
+            }
 
-        Unirest.config().reset();
-        Unirest.config().enableCookieManagement(false).interceptor(errorInterceptor);
-        Unirest.config().verifySsl(verifySsl);
-        HttpResponse<JsonNode> response = Unirest.get(url)
-            .header("Authorization", authType + " " + token)
-            .asJson();
-        if (response.isSuccess()) {
-            logger.info("HTTP status: " + response.getStatusText());
-            response.getBody().getObject()
-                .getJSONArray("tags")
-                .forEach(item -> resultContainer.getValue().add(new VersionNumber(item.toString())));
-        } else {
-            logger.warning("HTTP status: " + response.getStatusText());
-            resultContainer.setErrorMsg("HTTP status: " + response.getStatusText());
+            if (!response.isSuccess() || page == null || page.error != null) {
+                String error = page != null && page.error != null ? page.error : "HTTP status: " + response.getStatusText();
+                logger.warning(error);
+                resultContainer.setErrorMsg(error);
+                registryMetrics.getTagList().record(start);
+                registryMetrics.recordError(response.getStatus());
+                if (response.getStatus() == 401) {
+                    authCache.invalidate(registry);
+                }
+                return resultContainer;
+            }
+
+            if (pages == 0) {
+                etag = response.getHeaders().getFirst("ETag");
+                lastModified = response.getHeaders().getFirst("Last-Modified");
+            }
+            pages++;
+            registryMetrics.recordPage(page.bytes);
+            tags.addAll(page.tags);
+            if (tags.size() >= maxTags) {
+                logger.warning("Stopped listing tags of " + image + " after " + maxTags + " tags");
+                break;
+            }
+            url = page.getNextUrl(url);
         }
-        Unirest.shutDown();
 
+        registryMetrics.getTagList().record(start);
+        logger.fine("Received " + tags.size() + " tags in " + pages + " pages");
+        if (pages > 1 || tags.size() >= maxTags) {
+            // an unchanged first page says nothing about the following pages
+            etag = null;
+            lastModified = null;
+        }
+        resultContainer.setValue(new TagList(tags, emptyToNull(etag), emptyToNull(lastModified)));
         return resultContainer;
     }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * One page of a {@code /tags/list} response, read with a streaming parser so large tag lists are never held
+     * as a JSON tree. Compressed pages are decompressed while parsing, their size is counted as transferred.
+     */
+    static final class TagPage {
+        private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+        private static final int DECODE_BUFFER_SIZE = 8192;
+
+        private final List<String> tags = new ArrayList<>();
+        private final String link;
+        private String error;
+        private long bytes;
+
+        private TagPage(String link) {
+            this.link = link;
+        }
+
+        private static TagPage parse(RawResponse raw, int maxTags) {
+            TagPage page = new TagPage(raw.getHeaders().getFirst("Link"));
+            if (raw.getStatus() == 304) {
+                return page;
+            }
+            if (raw.getStatus() < 200 || raw.getStatus() >= 300) {
+                page.error = "HTTP status: " + raw.getStatusText();
+                return page;
+            }
+
+            CountingInputStream content = new CountingInputStream(raw.getContent());
+            try {
+                readTags(content, raw.getHeaders().getFirst("Content-Encoding"), maxTags, page.tags);
+            } catch (IOException | IllegalStateException e) {
+                page.error = "Unable to parse tag list: " + e.getMessage();
+            } finally {
+                page.bytes = content.getByteCount();
+            }
+            return page;
+        }
+
+        /**
+         * Reads the tags of a page body in the given content encoding, stopping after {@code maxTags} tags.
+         *
+         * @throws IllegalStateException if the body is no tag list
+         */
+        static void readTags(InputStream content, String encoding, int maxTags, List<String> tags) throws IOException {
+            try (JsonReader reader = new JsonReader(new InputStreamReader(decode(content, encoding),
+                StandardCharsets.UTF_8))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("tags".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext() && tags.size() < maxTags) {
+                            tags.add(reader.nextString());
+                        }
+                        if (tags.size() >= maxTags) {
+                            return;
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+        }
+
+        private static InputStream decode(InputStream content, String encoding) throws IOException {
+            String coding = encoding != null ? encoding.trim().toLowerCase(Locale.ROOT) : "";
+            switch (coding) {
+                case "":
+                case "identity":
+                    return content;
+                case "gzip":
+                case "x-gzip":
+                    return new GZIPInputStream(content, DECODE_BUFFER_SIZE);
+                case "deflate":
+                    return inflate(new BufferedInputStream(content, DECODE_BUFFER_SIZE));
+                default:
+                    throw new IOException("Unsupported content encoding " + encoding);
+            }
+        }
+
+        /**
+         * Inflates a {@code deflate} body, which is zlib wrapped according to the spec but raw from some servers.
+         */
+        private static InputStream inflate(BufferedInputStream content) throws IOException {
+            content.mark(2);
+            int first = content.read();
+            int second = content.read();
+            content.reset();
+            boolean zlib = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+            return new InflaterInputStream(content, new Inflater(!zlib), DECODE_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+        }
+
+        private String getNextUrl(String currentUrl) {
+            if (link == null || link.isEmpty()) {
+                return null;
+            }
+            Matcher m = NEXT_LINK.matcher(link);
+            return m.find() ? URI.create(currentUrl).resolve(m.group(1)).toString() : null;
+        }
+    }
 }
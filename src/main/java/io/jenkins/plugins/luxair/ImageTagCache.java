@@ -0,0 +1,285 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagDelta;
+import io.jenkins.plugins.luxair.model.TagList;
+import io.jenkins.plugins.luxair.model.TagListKey;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller wide cache of unfiltered tag lists, shared by all {@link ImageTagParameterDefinition}s.
+ * <p>
+ * Entries are evicted in LRU order once the configured maximum size is reached. An entry older than the configured
+ * TTL is still served, while a single background refresh replaces it with a fresh copy from the registry.
+ * Refreshes hand the cached {@link TagList} to the loader, so it can send its validators along and keep the list
+ * (including its filtered views, except incomplete ones) if the registry reports it unchanged. A changed list
+ * remembers which tags were added and removed compared to the list it replaced. A failed refresh keeps the cached list, so
+ * while a registry throttles or is down (see {@link RegistryThrottle}) its last good tag lists are still served.
+ * <p>
+ * Cached lists are also persisted below {@code JENKINS_HOME} (see {@link ImageTagCacheStore}) and restored on first
+ * access after a restart, so they only need to be revalidated instead of fetched again.
+ * <p>
+ * Concurrent lookups of the same key share a single registry query, whether the cache is enabled or not.
+ * Filter and ordering are not part of the key, as they are applied to the shared unfiltered list afterwards.
+ */
+@Extension
+public class ImageTagCache {
+
+    private static final Logger logger = Logger.getLogger(ImageTagCache.class.getName());
+    private static final int REFRESH_THREADS = 4;
+    private static final String STORE_DIRECTORY = "image-tag-parameter-cache";
+    private static final boolean PERSISTENT =
+        SystemProperties.getBoolean(ImageTagCache.class.getName() + ".persistent", true);
+
+    private final Map<TagListKey, Entry> entries = new LinkedHashMap<TagListKey, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TagListKey, Entry> eldest) {
+            return size() > ImageTagParameterConfiguration.get().getCacheMaxSize();
+        }
+    };
+
+    private final Map<TagListKey, CompletableFuture<ResultContainer<TagList>>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    private volatile ImageTagCacheStore store;
+
+    public ImageTagCache() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new NamingThreadFactory(new DaemonThreadFactory(), "ImageTagCache.refresh"));
+        executor.allowCoreThreadTimeOut(true);
+        this.refreshExecutor = executor;
+    }
+
+    public static ImageTagCache get() {
+        return ExtensionList.lookupSingleton(ImageTagCache.class);
+    }
+
+    /**
+     * Returns the cached tag list for the given key, using the loader to query the registry on a miss.
+     * A stale hit is returned as is and triggers an asynchronous refresh through the loader.
+     * Failed lookups are never cached.
+     */
+    public ResultContainer<TagList> getTags(TagListKey key, Loader loader) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(ImageTagParameterConfiguration.get().getCacheTtl());
+        if (ttlMillis <= 0) {
+            return load(key, loader, null, false);
+        }
+
+        Entry entry = getEntry(key);
+        RegistryMetrics.Registry metrics = RegistryMetrics.INSTANCE.forRegistry(key.getRegistry());
+        if (entry == null) {
+            metrics.recordCacheMiss();
+            logger.fine(() -> "Tag cache miss for " + key);
+            return load(key, loader, null, true);
+        }
+
+        metrics.recordCacheHit();
+        if (entry.isStale(ttlMillis) && entry.refreshing.compareAndSet(false, true)) {
+            logger.fine(() -> "Refreshing stale tag cache entry for " + key);
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        load(key, loader, entry.tagList, true);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "Unable to refresh tags for " + key, e);
+                    } finally {
+                        entry.refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+            }
+        }
+
+        return entry.toResult();
+    }
+
+    /**
+     * Returns the cached tag list for the given key without querying the registry, or {@code null} if there is none.
+     */
+    public TagList peek(TagListKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry != null ? entry.tagList : null;
+        }
+    }
+
+    /**
+     * Queries the registry through the loader and replaces the cached tag list, regardless of its age.
+     */
+    public ResultContainer<TagList> refresh(TagListKey key, Loader loader) {
+        Entry entry = getEntry(key);
+        return load(key, loader, entry != null ? entry.tagList : null, true);
+    }
+
+    /**
+     * Returns the cached entry of a key, restoring it from disk if it was persisted before a restart.
+     */
+    private Entry getEntry(TagListKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        ImageTagCacheStore.Stored stored = getStore() != null ? getStore().get(key) : null;
+        if (stored == null) {
+            return null;
+        }
+        logger.fine(() -> "Restored tag cache entry for " + key);
+        Entry restored = new Entry(stored.tagList, stored.fetchedAt);
+        synchronized (entries) {
+            Entry entry = entries.putIfAbsent(key, restored);
+            return entry != null ? entry : restored;
+        }
+    }
+
+    private ImageTagCacheStore getStore() {
+        if (!PERSISTENT) {
+            return null;
+        }
+        ImageTagCacheStore current = store;
+        if (current == null) {
+            synchronized (this) {
+                current = store;
+                if (current == null) {
+                    current = new ImageTagCacheStore(new File(Jenkins.get().getRootDir(), STORE_DIRECTORY));
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Queries the registry through the loader, or joins the query already running for the same key.
+     */
+    private ResultContainer<TagList> load(TagListKey key, Loader loader, TagList previous, boolean store) {
+        CompletableFuture<ResultContainer<TagList>> flight = new CompletableFuture<>();
+        CompletableFuture<ResultContainer<TagList>> pending = inFlight.putIfAbsent(key, flight);
+        if (pending != null) {
+            logger.fine(() -> "Joining pending tag lookup for " + key);
+            try {
+                return copy(pending.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            ResultContainer<TagList> result = loader.load(previous);
+            // lists selected on an agent are cut to the parameter's first tags, tags merely falling out of those
+            // aren't removed from the image, so no delta is reported for them
+            if (previous != null && !result.getErrorMsg().isPresent() && result.getValue() != previous
+                && key.getView().isEmpty()) {
+                TagDelta delta = result.getValue().getIndex().diff(previous.getIndex());
+                // an unchanged download keeps reporting the last actual change
+                result.getValue().setDelta(delta.isEmpty() ? previous.getDelta() : delta);
+                if (!delta.isEmpty()) {
+                    logger.fine(() -> "Tags of " + key + ": " + delta.getAdded().size() + " added, "
+                        + delta.getRemoved().size() + " removed");
+                }
+            }
+            if (previous != null && result.getValue() == previous) {
+                // views left incomplete get another try once per refresh, not on every request
+                previous.dropIncompleteViews();
+            }
+            if (store && !result.getErrorMsg().isPresent()) {
+                Entry entry = new Entry(result.getValue(), System.currentTimeMillis());
+                synchronized (entries) {
+                    entries.put(key, entry);
+                }
+                persist(key, entry, result.getValue() == previous);
+            }
+            flight.complete(result);
+            return copy(result);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private void persist(TagListKey key, Entry entry, boolean unchanged) {
+        ImageTagCacheStore persistent = getStore();
+        if (persistent == null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> persistent.put(key, entry.tagList, entry.fetchedAt, unchanged));
+        } catch (RejectedExecutionException e) {
+            logger.fine(() -> "Not persisting tags of " + key + " during shutdown");
+        }
+    }
+
+    /**
+     * Every caller gets a container of its own, so the shared result can't be changed through it.
+     */
+    private static ResultContainer<TagList> copy(ResultContainer<TagList> result) {
+        ResultContainer<TagList> copy = new ResultContainer<>(result.getValue());
+        result.getErrorMsg().ifPresent(copy::setErrorMsg);
+        return copy;
+    }
+
+    @Terminator
+    @SuppressWarnings("unused")
+    public static void shutdown() {
+        ImageTagCache cache = ExtensionList.lookup(ImageTagCache.class).get(ImageTagCache.class);
+        if (cache != null) {
+            cache.refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the tag list of one image, given the currently cached list or {@code null}.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        ResultContainer<TagList> load(TagList previous);
+    }
+
+    private static final class Entry {
+        private final TagList tagList;
+        private final long fetchedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private Entry(TagList tagList, long fetchedAt) {
+            this.tagList = tagList;
+            this.fetchedAt = fetchedAt;
+        }
+
+        private boolean isStale(long ttlMillis) {
+            return System.currentTimeMillis() - fetchedAt > ttlMillis;
+        }
+
+        private ResultContainer<TagList> toResult() {
+            return new ResultContainer<>(tagList);
+        }
+    }
+}
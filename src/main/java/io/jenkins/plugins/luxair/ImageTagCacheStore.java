@@ -0,0 +1,337 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Util;
+import io.jenkins.plugins.luxair.model.TagList;
+import io.jenkins.plugins.luxair.model.TagListKey;
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the cached tag lists on disk, so a restarted controller starts with a warm {@link ImageTagCache} and only
+ * needs to revalidate its lists with the registries.
+ * <p>
+ * Every registry gets an append-only file holding full records (tags and validators) and small touch records for
+ * lists the registry reported unchanged. A file is indexed on first access, keeping only the offset of the latest
+ * full record and the latest fetch time per list in memory; tags are read when a list is actually restored.
+ * Once most of a file is superseded records, it is rewritten with the live records only, dropping lists not
+ * fetched for a week.
+ */
+class ImageTagCacheStore {
+
+    private static final Logger logger = Logger.getLogger(ImageTagCacheStore.class.getName());
+    private static final int MAGIC = 0x49544331; // "ITC1"
+    private static final byte FULL = 1;
+    private static final byte TOUCH = 2;
+    private static final long COMPACT_MIN_SIZE = 1024 * 1024;
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private final File directory;
+    private final Map<String, RegistryFile> files = new ConcurrentHashMap<>();
+
+    ImageTagCacheStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the persisted tag list of the given key, or {@code null} if there is none.
+     */
+    Stored get(TagListKey key) {
+        if (!key.getView().isEmpty()) {
+            return null;
+        }
+        return forRegistry(key.getRegistry()).get(key);
+    }
+
+    /**
+     * Persists a freshly fetched tag list; an {@code unchanged} list only gets its fetch time updated.
+     */
+    void put(TagListKey key, TagList tagList, long fetchedAt, boolean unchanged) {
+        // lists selected on an agent depend on the parameter settings and are not worth keeping across restarts
+        if (!key.getView().isEmpty()) {
+            return;
+        }
+        forRegistry(key.getRegistry()).put(key, tagList, fetchedAt, unchanged);
+    }
+
+    private RegistryFile forRegistry(String registry) {
+        return files.computeIfAbsent(registry, r -> new RegistryFile(new File(directory, getFileName(r))));
+    }
+
+    /**
+     * Returns the file name of a registry: a readable part for admins and a hash of the full URL, so registries
+     * differing only in scheme or in characters not allowed in file names get different files.
+     */
+    static String getFileName(String registry) {
+        return registry.replaceFirst("^https?://", "").replaceAll("[^A-Za-z0-9.-]", "_")
+            + "-" + Util.getDigestOf(registry).substring(0, 16) + ".log";
+    }
+
+    static final class Stored {
+        final TagList tagList;
+        final long fetchedAt;
+
+        private Stored(TagList tagList, long fetchedAt) {
+            this.tagList = tagList;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private static final class IndexEntry {
+        private final long offset;
+        private final long length;
+        private long fetchedAt;
+
+        private IndexEntry(long offset, long length, long fetchedAt) {
+            this.offset = offset;
+            this.length = length;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private static final class RegistryFile {
+        private final File file;
+        private Map<TagListKey, IndexEntry> index;
+        private long liveBytes;
+
+        private RegistryFile(File file) {
+            this.file = file;
+        }
+
+        synchronized Stored get(TagListKey key) {
+            IndexEntry entry = getIndex().get(key);
+            if (entry == null) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                TagList tagList = readFullRecord(channel, entry.offset, key);
+                if (tagList != null) {
+                    return new Stored(tagList, entry.fetchedAt);
+                }
+                logger.warning("Discarding cached tags of " + key + ", " + file + " holds another record at offset "
+                    + entry.offset);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to read cached tags of " + key + " from " + file, e);
+            }
+            index.remove(key);
+            liveBytes -= entry.length;
+            return null;
+        }
+
+        synchronized void put(TagListKey key, TagList tagList, long fetchedAt, boolean unchanged) {
+            Map<TagListKey, IndexEntry> current = getIndex();
+            IndexEntry entry = current.get(key);
+            try {
+                boolean create = !file.exists() || file.length() == 0;
+                if (create) {
+                    Files.createDirectories(file.getParentFile().toPath());
+                }
+                long offset = create ? 0 : file.length();
+                try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                    if (create) {
+                        out.writeInt(MAGIC);
+                        offset = out.size();
+                    }
+                    if (unchanged && entry != null) {
+                        writeRecord(out, TOUCH, key, fetchedAt, null);
+                        entry.fetchedAt = fetchedAt;
+                    } else {
+                        int start = out.size();
+                        writeRecord(out, FULL, key, fetchedAt, tagList);
+                        if (entry != null) {
+                            liveBytes -= entry.length;
+                        }
+                        entry = new IndexEntry(offset, out.size() - start, fetchedAt);
+                        liveBytes += entry.length;
+                        current.put(key, entry);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to persist cached tags of " + key + " to " + file, e);
+                return;
+            }
+
+            if (file.length() > COMPACT_MIN_SIZE && file.length() > 2 * liveBytes) {
+                compact();
+            }
+        }
+
+        /**
+         * Indexes the file on first access, cutting off a record left incomplete by a crash.
+         */
+        private Map<TagListKey, IndexEntry> getIndex() {
+            if (index != null) {
+                return index;
+            }
+            index = new HashMap<>();
+            liveBytes = 0;
+            if (!file.exists()) {
+                return index;
+            }
+
+            long valid = 0;
+            try (CountingInputStream counting = new CountingInputStream(
+                     new BufferedInputStream(Files.newInputStream(file.toPath())));
+                 DataInputStream in = new DataInputStream(counting)) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Unknown file format");
+                }
+                valid = counting.getByteCount();
+                while (true) {
+                    long offset = counting.getByteCount();
+                    byte type;
+                    try {
+                        type = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    TagListKey key = readKey(in);
+                    long fetchedAt = in.readLong();
+                    if (type == FULL) {
+                        readTagList(in);
+                        IndexEntry previous = index.put(key,
+                            new IndexEntry(offset, counting.getByteCount() - offset, fetchedAt));
+                        liveBytes += counting.getByteCount() - offset - (previous != null ? previous.length : 0);
+                    } else if (type == TOUCH) {
+                        IndexEntry entry = index.get(key);
+                        if (entry != null) {
+                            entry.fetchedAt = fetchedAt;
+                        }
+                    } else {
+                        throw new IOException("Unknown record type " + type);
+                    }
+                    valid = counting.getByteCount();
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Discarding unreadable cache data of " + file + " after offset " + valid, e);
+                truncate(valid);
+            }
+            logger.fine(() -> "Indexed " + index.size() + " cached tag lists from " + file);
+            return index;
+        }
+
+        private void truncate(long length) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(length < Integer.BYTES ? 0 : length);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to truncate " + file, e);
+            }
+        }
+
+        /**
+         * Rewrites the file with the latest record of each list, dropping lists not fetched for a while.
+         */
+        private void compact() {
+            long expired = System.currentTimeMillis() - MAX_AGE;
+            Path temp = new File(file.getPath() + ".tmp").toPath();
+            Map<TagListKey, IndexEntry> compacted = new HashMap<>();
+            long compactedBytes = 0;
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                     FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    out.writeInt(MAGIC);
+                    List<Map.Entry<TagListKey, IndexEntry>> entries = new ArrayList<>(index.entrySet());
+                    for (Map.Entry<TagListKey, IndexEntry> entry : entries) {
+                        if (entry.getValue().fetchedAt < expired) {
+                            continue;
+                        }
+                        TagList tagList = readFullRecord(channel, entry.getValue().offset, entry.getKey());
+                        if (tagList == null) {
+                            continue;
+                        }
+
+                        int start = out.size();
+                        writeRecord(out, FULL, entry.getKey(), entry.getValue().fetchedAt, tagList);
+                        compacted.put(entry.getKey(),
+                            new IndexEntry(start, out.size() - start, entry.getValue().fetchedAt));
+                        compactedBytes += out.size() - start;
+                    }
+                }
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.fine(() -> "Compacted " + file + " to " + compacted.size() + " tag lists");
+                index = compacted;
+                liveBytes = compactedBytes;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to compact " + file, e);
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                    // left for the next compaction to overwrite
+                }
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, TagListKey key, long fetchedAt, TagList tagList)
+        throws IOException {
+        out.writeByte(type);
+        out.writeUTF(key.getRegistry());
+        out.writeUTF(key.getImage());
+        out.writeUTF(key.getCredential());
+        out.writeBoolean(key.isVerifySsl());
+        out.writeLong(fetchedAt);
+        if (type == FULL) {
+            out.writeUTF(tagList.getEtag() != null ? tagList.getEtag() : "");
+            out.writeUTF(tagList.getLastModified() != null ? tagList.getLastModified() : "");
+            out.writeInt(tagList.getTags().size());
+            for (String tag : tagList.getTags()) {
+                out.writeUTF(tag);
+            }
+        }
+    }
+
+    /**
+     * Reads the tags of the full record at the given offset, or returns {@code null} if the record there is not
+     * the full record of the given key.
+     */
+    private static TagList readFullRecord(FileChannel channel, long offset, TagListKey key) throws IOException {
+        channel.position(offset);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        byte type = in.readByte();
+        if (type != FULL || !readKey(in).equals(key)) {
+            return null;
+        }
+        in.readLong();
+        return readTagList(in);
+    }
+
+    private static TagListKey readKey(DataInputStream in) throws IOException {
+        return new TagListKey(in.readUTF(), in.readUTF(), in.readUTF(), in.readBoolean());
+    }
+
+    private static TagList readTagList(DataInputStream in) throws IOException {
+        String etag = in.readUTF();
+        String lastModified = in.readUTF();
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid tag count " + size);
+        }
+        List<String> tags = new ArrayList<>(Math.min(size, 1 << 16));
+        for (int i = 0; i < size; i++) {
+            tags.add(in.readUTF());
+        }
+        return new TagList(tags, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified);
+    }
+}
@@ -0,0 +1,85 @@
+package io.jenkins.plugins.luxair;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the {@link RegistryMetrics} through the metrics plugin, if it is installed.
+ * <p>
+ * Registries show up as they are first queried, while the metric set is only read when the metrics plugin indexes its
+ * providers. So the set holds a fixed number of gauges totalled over all registries, plus the errors per registry;
+ * the values of each registry are listed on the {@link ImageTagMetricsLink} page.
+ */
+@Extension(optional = true)
+public class ImageTagMetricProvider extends MetricProvider {
+
+    private static final String PREFIX = "image-tag-parameter.";
+
+    private final MetricSet metricSet = createMetricSet();
+
+    @Override
+    public MetricSet getMetricSet() {
+        return metricSet;
+    }
+
+    private static MetricSet createMetricSet() {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        addTimer(metrics, "authProbe", RegistryMetrics.Registry::getAuthProbe);
+        addTimer(metrics, "tokenFetch", RegistryMetrics.Registry::getTokenFetch);
+        addTimer(metrics, "tagList", RegistryMetrics.Registry::getTagList);
+        addTimer(metrics, "filter", RegistryMetrics.Registry::getFilter);
+        addTimer(metrics, "manifests", RegistryMetrics.Registry::getManifests);
+        metrics.put(PREFIX + "tagList.pages", sum(RegistryMetrics.Registry::getPages));
+        metrics.put(PREFIX + "tagList.bytes", sum(RegistryMetrics.Registry::getBytes));
+        metrics.put(PREFIX + "cache.hits", sum(RegistryMetrics.Registry::getCacheHits));
+        metrics.put(PREFIX + "cache.misses", sum(RegistryMetrics.Registry::getCacheMisses));
+        metrics.put(PREFIX + "errors", sum(ImageTagMetricProvider::countErrors));
+        metrics.put(PREFIX + "errors.perRegistry", (Gauge<Map<String, Long>>) () -> {
+            Map<String, Long> errors = new TreeMap<>();
+            for (RegistryMetrics.Registry registry : RegistryMetrics.INSTANCE.getRegistries()) {
+                errors.put(registry.getName(), countErrors(registry));
+            }
+            return errors;
+        });
+        metrics.put(PREFIX + "registries",
+            (Gauge<Integer>) () -> RegistryMetrics.INSTANCE.getRegistries().size());
+
+        Map<String, Metric> metricSet = Collections.unmodifiableMap(metrics);
+        return () -> metricSet;
+    }
+
+    private static void addTimer(Map<String, Metric> metrics, String name,
+                                 Function<RegistryMetrics.Registry, RegistryMetrics.Timer> timer) {
+        metrics.put(PREFIX + name + ".count", sum(registry -> timer.apply(registry).getCount()));
+        metrics.put(PREFIX + name + ".meanMillis", (Gauge<Long>) () -> {
+            long count = 0;
+            long nanos = 0;
+            for (RegistryMetrics.Registry registry : RegistryMetrics.INSTANCE.getRegistries()) {
+                count += timer.apply(registry).getCount();
+                nanos += timer.apply(registry).getTotalNanos();
+            }
+            return count > 0 ? TimeUnit.NANOSECONDS.toMillis(nanos / count) : 0;
+        });
+        metrics.put(PREFIX + name + ".maxMillis", (Gauge<Long>) () -> RegistryMetrics.INSTANCE.getRegistries().stream()
+            .mapToLong(registry -> timer.apply(registry).getMaxMillis()).max().orElse(0));
+    }
+
+    private static Gauge<Long> sum(ToLongFunction<RegistryMetrics.Registry> value) {
+        return () -> RegistryMetrics.INSTANCE.getRegistries().stream().mapToLong(value).sum();
+    }
+
+    private static long countErrors(RegistryMetrics.Registry registry) {
+        return registry.getErrors().values().stream().mapToLong(Long::longValue).sum();
+    }
+}
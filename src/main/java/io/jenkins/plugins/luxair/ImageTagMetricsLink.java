@@ -0,0 +1,49 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import jenkins.model.Jenkins;
+
+import java.util.Collection;
+
+/**
+ * Lists the {@link RegistryMetrics} of all registries queried since startup on the "Manage Jenkins" page.
+ */
+@Extension
+public class ImageTagMetricsLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Image Tag Registries";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Call counts, latencies, errors and cache hit ratios of the registries queried for image tags.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "imageTagMetrics";
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    public Collection<RegistryMetrics.Registry> getRegistries() {
+        return RegistryMetrics.INSTANCE.getRegistries();
+    }
+}
@@ -21,6 +21,12 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
 
     private static final Logger logger = Logger.getLogger(ImageTagParameterConfiguration.class.getName());
     private static final String DEFAULT_REGISTRY = "https://registry-1.docker.io";
+    private static final int DEFAULT_CACHE_TTL = 300;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 500;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10;
+    private static final int DEFAULT_READ_TIMEOUT = 30;
+    private static final int DEFAULT_TAG_PAGE_SIZE = 1000;
+    private static final int DEFAULT_MAX_TAG_COUNT = 100000;
 
     public static ImageTagParameterConfiguration get() {
         return GlobalConfiguration.all().get(ImageTagParameterConfiguration.class);
@@ -30,11 +36,27 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
     private String defaultCredentialId = "";
     private Ordering defaultTagOrdering = Ordering.NATURAL;
     private boolean defaultVerifySsl = true;
+    private Integer defaultMaxTags = 0;
+    private Integer cacheTtl = DEFAULT_CACHE_TTL;
+    private Integer cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+    private Integer connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private Integer readTimeout = DEFAULT_READ_TIMEOUT;
+    private Integer tagPageSize = DEFAULT_TAG_PAGE_SIZE;
+    private Integer maxTagCount = DEFAULT_MAX_TAG_COUNT;
+    private Integer prefetchInterval = 0;
+    private Integer requestsPerMinute = 0;
+    private String agentLabel = "";
 
     public ImageTagParameterConfiguration() {
         load();
     }
 
+    @Override
+    public synchronized void load() {
+        super.load();
+        RegistryThrottle.INSTANCE.setRequestsPerMinute(getRequestsPerMinute());
+    }
+
     public String getDefaultRegistry() {
         return StringUtil.isNotNullOrEmpty(defaultRegistry) ? defaultRegistry : DEFAULT_REGISTRY;
     }
@@ -47,8 +69,49 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
         return defaultTagOrdering != null ? defaultTagOrdering : Ordering.NATURAL;
     }
 
+    public int getDefaultMaxTags() {
+        return defaultMaxTags != null && defaultMaxTags > 0 ? defaultMaxTags : 0;
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl != null && cacheTtl >= 0 ? cacheTtl : DEFAULT_CACHE_TTL;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize != null && cacheMaxSize > 0 ? cacheMaxSize : DEFAULT_CACHE_MAX_SIZE;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout != null && connectTimeout > 0 ? connectTimeout : DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout != null && readTimeout > 0 ? readTimeout : DEFAULT_READ_TIMEOUT;
+    }
+
+    public int getTagPageSize() {
+        return tagPageSize != null && tagPageSize > 0 ? tagPageSize : DEFAULT_TAG_PAGE_SIZE;
+    }
+
+    public int getMaxTagCount() {
+        return maxTagCount != null && maxTagCount > 0 ? maxTagCount : DEFAULT_MAX_TAG_COUNT;
+    }
+
+    public int getPrefetchInterval() {
+        return prefetchInterval != null && prefetchInterval > 0 ? prefetchInterval : 0;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute != null && requestsPerMinute > 0 ? requestsPerMinute : 0;
+    }
+
+    public String getAgentLabel() {
+        return StringUtil.isNotNullOrEmpty(agentLabel) ? agentLabel.trim() : "";
+    }
+
     @Override
     public boolean configure(StaplerRequest2 req, JSONObject json) {
+        // a cleared number field is submitted as an empty string and falls back to its default
         if (json.has("defaultRegistry")) {
             this.defaultRegistry = json.getString("defaultRegistry");
             logger.fine("Changed default registry to: " + defaultRegistry);
@@ -61,7 +124,49 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
             this.defaultTagOrdering = Ordering.valueOf(json.getString("defaultTagOrdering"));
             logger.fine("Changed default tag ordering to: " + defaultTagOrdering);
         }
+        if (json.has("defaultMaxTags")) {
+            this.defaultMaxTags = json.optInt("defaultMaxTags", 0);
+            logger.fine("Changed default max tags to: " + defaultMaxTags);
+        }
+        if (json.has("cacheTtl")) {
+            this.cacheTtl = json.optInt("cacheTtl", DEFAULT_CACHE_TTL);
+            logger.fine("Changed tag cache TTL to: " + cacheTtl);
+        }
+        if (json.has("cacheMaxSize")) {
+            this.cacheMaxSize = json.optInt("cacheMaxSize", DEFAULT_CACHE_MAX_SIZE);
+            logger.fine("Changed tag cache max size to: " + cacheMaxSize);
+        }
+        if (json.has("connectTimeout")) {
+            this.connectTimeout = json.optInt("connectTimeout", DEFAULT_CONNECT_TIMEOUT);
+            logger.fine("Changed registry connect timeout to: " + connectTimeout);
+        }
+        if (json.has("readTimeout")) {
+            this.readTimeout = json.optInt("readTimeout", DEFAULT_READ_TIMEOUT);
+            logger.fine("Changed registry read timeout to: " + readTimeout);
+        }
+        if (json.has("tagPageSize")) {
+            this.tagPageSize = json.optInt("tagPageSize", DEFAULT_TAG_PAGE_SIZE);
+            logger.fine("Changed tag page size to: " + tagPageSize);
+        }
+        if (json.has("maxTagCount")) {
+            this.maxTagCount = json.optInt("maxTagCount", DEFAULT_MAX_TAG_COUNT);
+            logger.fine("Changed max tag count to: " + maxTagCount);
+        }
+        if (json.has("prefetchInterval")) {
+            this.prefetchInterval = json.optInt("prefetchInterval", 0);
+            logger.fine("Changed tag prefetch interval to: " + prefetchInterval);
+        }
+        if (json.has("requestsPerMinute")) {
+            this.requestsPerMinute = json.optInt("requestsPerMinute", 0);
+            RegistryThrottle.INSTANCE.setRequestsPerMinute(getRequestsPerMinute());
+            logger.fine("Changed registry requests per minute to: " + requestsPerMinute);
+        }
+        if (json.has("agentLabel")) {
+            this.agentLabel = json.getString("agentLabel");
+            logger.fine("Changed registry agent label to: " + agentLabel);
+        }
         save();
+        RegistryClients.get().reset();
         return true;
     }
 
@@ -89,6 +194,89 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
         save();
     }
 
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setDefaultMaxTags(int defaultMaxTags) {
+        logger.info("Changing default max tags to: " + defaultMaxTags);
+        this.defaultMaxTags = defaultMaxTags;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setCacheTtl(int cacheTtl) {
+        logger.info("Changing tag cache TTL to: " + cacheTtl);
+        this.cacheTtl = cacheTtl;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setCacheMaxSize(int cacheMaxSize) {
+        logger.info("Changing tag cache max size to: " + cacheMaxSize);
+        this.cacheMaxSize = cacheMaxSize;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setConnectTimeout(int connectTimeout) {
+        logger.info("Changing registry connect timeout to: " + connectTimeout);
+        this.connectTimeout = connectTimeout;
+        save();
+        RegistryClients.get().reset();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setReadTimeout(int readTimeout) {
+        logger.info("Changing registry read timeout to: " + readTimeout);
+        this.readTimeout = readTimeout;
+        save();
+        RegistryClients.get().reset();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setTagPageSize(int tagPageSize) {
+        logger.info("Changing tag page size to: " + tagPageSize);
+        this.tagPageSize = tagPageSize;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setMaxTagCount(int maxTagCount) {
+        logger.info("Changing max tag count to: " + maxTagCount);
+        this.maxTagCount = maxTagCount;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setPrefetchInterval(int prefetchInterval) {
+        logger.info("Changing tag prefetch interval to: " + prefetchInterval);
+        this.prefetchInterval = prefetchInterval;
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        logger.info("Changing registry requests per minute to: " + requestsPerMinute);
+        this.requestsPerMinute = requestsPerMinute;
+        RegistryThrottle.INSTANCE.setRequestsPerMinute(getRequestsPerMinute());
+        save();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setAgentLabel(String agentLabel) {
+        logger.info("Changing registry agent label to: " + agentLabel);
+        this.agentLabel = agentLabel;
+        save();
+    }
+
     @SuppressWarnings("unused")
     public ListBoxModel doFillDefaultCredentialIdItems(@QueryParameter String credentialsId) {
         if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
@@ -97,7 +285,7 @@ public class ImageTagParameterConfiguration extends GlobalConfiguration {
         }
         return new StandardListBoxModel()
             .includeEmptyValue()
-            .includeAs(ACL.SYSTEM, Jenkins.get(), StandardUsernameCredentials.class)
+            .includeAs(ACL.SYSTEM2, Jenkins.get(), StandardUsernameCredentials.class)
             .includeCurrentValue(defaultCredentialId);
     }
 
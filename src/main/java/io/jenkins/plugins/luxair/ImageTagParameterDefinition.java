@@ -7,28 +7,47 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.Item;
+import hudson.model.Job;
 import hudson.model.ParameterDefinition;
 import hudson.model.ParameterValue;
+import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Queue;
 import hudson.model.queue.Tasks;
 import hudson.model.SimpleParameterDefinition;
 import hudson.security.ACL;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import io.jenkins.plugins.luxair.model.Ordering;
 import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagDelta;
+import io.jenkins.plugins.luxair.model.TagIndex;
+import io.jenkins.plugins.luxair.model.TagList;
+import io.jenkins.plugins.luxair.model.TagListKey;
 import io.jenkins.plugins.luxair.util.StringUtil;
 import jenkins.model.Jenkins;
+import jenkins.security.HMACConfidentialKey;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.*;
+import org.kohsuke.stapler.verb.GET;
+import org.springframework.security.core.Authentication;
 
 import javax.annotation.Nonnull;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
 
 public class ImageTagParameterDefinition extends SimpleParameterDefinition {
@@ -36,6 +55,11 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
     private static final long serialVersionUID = 3938123092372L;
     private static final Logger logger = Logger.getLogger(ImageTagParameterDefinition.class.getName());
     private static final ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+    // tag syntax of the distribution spec
+    private static final Pattern TAG_PATTERN = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9_.-]{0,127}");
+    // identifies the login a tag list was fetched with, without keeping the password in the cache key
+    private static final HMACConfidentialKey LOGIN_FINGERPRINT =
+        new HMACConfidentialKey(ImageTagParameterDefinition.class, "loginFingerprint");
 
     private final String image;
     private final String registry;
@@ -45,6 +69,9 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
     private Ordering tagOrder;
     private String errorMsg = "";
     private Boolean verifySsl = true;
+    private Integer maxTags;
+    private boolean validateTag;
+    private transient Pattern filterPattern;
 
     @DataBoundConstructor
     @SuppressWarnings("unused")
@@ -83,6 +110,15 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
         return filter;
     }
 
+    private ResultContainer<Pattern> getFilterPattern() {
+        if (filterPattern != null) {
+            return new ResultContainer<>(filterPattern);
+        }
+        ResultContainer<Pattern> pattern = ImageTag.compileFilter(filter);
+        filterPattern = pattern.getValue();
+        return pattern;
+    }
+
     public String getDefaultTag() {
         return defaultTag;
     }
@@ -125,6 +161,26 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
 		this.verifySsl = verifySsl;
 	}
 
+    public int getMaxTags() {
+        return maxTags != null ? maxTags : config.getDefaultMaxTags();
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setMaxTags(int maxTags) {
+        this.maxTags = maxTags;
+    }
+
+    public boolean isValidateTag() {
+        return validateTag;
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused")
+    public void setValidateTag(boolean validateTag) {
+        this.validateTag = validateTag;
+    }
+
     private String getDefaultOrEmptyCredentialId(String registry, String credentialId) {
         if (registry.equals(config.getDefaultRegistry()) && !StringUtil.isNotNullOrEmpty(credentialId)) {
             return config.getDefaultCredentialId();
@@ -136,17 +192,7 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
     }
 
     public List<String> getTags() {
-        String user = "";
-        String password = "";
-
-        StandardUsernamePasswordCredentials credential = findCredential(credentialId);
-        if (credential != null) {
-            user = credential.getUsername();
-            password = credential.getPassword().getPlainText();
-        }
-
-        ResultContainer<List<String>> resultContainer = ImageTag
-            .getTags(image, registry, filter, user, password, getTagOrder(), verifySsl);
+        ResultContainer<List<String>> resultContainer = lookupTags(getCurrentContext());
         Optional<String> optionalErrorMsg = resultContainer.getErrorMsg();
         if (optionalErrorMsg.isPresent()) {
             setErrorMsg(optionalErrorMsg.get());
@@ -157,20 +203,273 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
         return resultContainer.getValue();
     }
 
-    private StandardUsernamePasswordCredentials findCredential(String credentialId) {
-        if (StringUtil.isNotNullOrEmpty(credentialId)) {
-            Item context = null;
+    /**
+     * Looks up the filtered and ordered tags, resolving the credential in the given context.
+     */
+    ResultContainer<List<String>> lookupTags(Item context) {
+        ResultContainer<List<String>> resultContainer = new ResultContainer<>(Collections.emptyList());
+
+        ResultContainer<Pattern> pattern = getFilterPattern();
+        if (pattern.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(pattern.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        ResultContainer<TagList> tags = getUnfilteredTags(context);
+        if (tags.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(tags.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        TagList tagList = tags.getValue();
+        if (isLookedUpOnAgent()) {
+            // filtered and ordered by the agent already
+            resultContainer.setValue(tagList.getTags());
+            return resultContainer;
+        }
 
-            if (Stapler.getCurrentRequest() != null) {
-                context = Stapler.getCurrentRequest().findAncestorObject(Item.class);
+        // the filtered view is shared by all parameters with the same settings and survives unchanged refreshes
+        boolean byCreation = getTagOrder() == Ordering.CREATED_DESC;
+        String viewKey = getViewKey();
+        ResultContainer<List<String>> view = tagList.getView(viewKey, () -> {
+            long start = System.nanoTime();
+            ResultContainer<List<String>> filtered = ImageTag.filterTags(tagList.getIndex(), pattern.getValue(),
+                getTagOrder(), byCreation ? 0 : getMaxTags());
+            RegistryMetrics.INSTANCE.forRegistry(registry).getFilter().record(start);
+            if (byCreation && !filtered.getErrorMsg().isPresent()) {
+                String[] login = getLogin(context);
+                filtered = ImageTag.orderByCreation(image, registry, login[0], login[1], isVerifySsl(),
+                    filtered.getValue(), getMaxTags());
             }
-            List<StandardUsernamePasswordCredentials> lookupCredentials = CredentialsProvider.lookupCredentials(
-                StandardUsernamePasswordCredentials.class,
-                context,
-                context instanceof Queue.Task ? Tasks.getAuthenticationOf((Queue.Task)context) : ACL.SYSTEM,
-                Collections.emptyList());
-            CredentialsMatcher allOf = CredentialsMatchers.allOf(CredentialsMatchers.withId(credentialId));
-            return CredentialsMatchers.firstOrNull(lookupCredentials, allOf);
+            return filtered;
+        });
+        if (byCreation && view.getErrorMsg().isPresent()) {
+            // creation times may be missing because of a timeout or an unavailable registry, the partial order is
+            // served until the next refresh tries again
+            tagList.markIncomplete(viewKey);
+        }
+        view.getErrorMsg().ifPresent(resultContainer::setErrorMsg);
+        resultContainer.setValue(ImageTag.withDefaultTag(view.getValue(), tagList.getIndex(), pattern.getValue(),
+            getMaxTags(), defaultTag));
+        return resultContainer;
+    }
+
+    /**
+     * Returns the URL the parameter page loads the tags from, or {@code null} if the tags have to be rendered
+     * right away, e.g. when this definition does not belong to the job of the current request.
+     */
+    @Restricted(NoExternalUse.class)
+    public String getFillTagsUrl() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null) {
+            return null;
+        }
+        Job<?, ?> job = req.findAncestorObject(Job.class);
+        if (job == null || DescriptorImpl.findDefinition(job, getName()) != this) {
+            return null;
+        }
+        return getDescriptorUrl(req, job) + "/fillTags?param=" + Util.rawEncode(getName());
+    }
+
+    /**
+     * Returns the URL the parameter page loads the tags of all image tag parameters of the job from,
+     * or {@code null} if {@link #getFillTagsUrl()} is {@code null}.
+     */
+    @Restricted(NoExternalUse.class)
+    public String getFillAllTagsUrl() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (getFillTagsUrl() == null) {
+            return null;
+        }
+        return getDescriptorUrl(req, req.findAncestorObject(Job.class)) + "/fillAllTags";
+    }
+
+    /**
+     * Returns the URL the parameter page searches the tags with, once there are too many tags to list them all,
+     * or {@code null} if {@link #getFillTagsUrl()} is {@code null}.
+     */
+    @Restricted(NoExternalUse.class)
+    public String getSearchTagsUrl() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (getFillTagsUrl() == null) {
+            return null;
+        }
+        return getDescriptorUrl(req, req.findAncestorObject(Job.class)) + "/searchTags?param="
+            + Util.rawEncode(getName());
+    }
+
+    private String getDescriptorUrl(StaplerRequest2 req, Job<?, ?> job) {
+        return req.getContextPath() + "/" + job.getUrl() + "descriptorByName/" + getClass().getName();
+    }
+
+    JSONObject toTagsJson(ResultContainer<List<String>> resultContainer, Item context) {
+        JSONObject json = new JSONObject();
+        json.put("image", image);
+        List<String> tags = resultContainer.getValue();
+        if (tags.size() > DescriptorImpl.SEARCH_THRESHOLD) {
+            // the page switches to searching the tags instead of listing them all
+            tags = tags.subList(0, Math.min(DescriptorImpl.SEARCH_LIMIT, tags.size()));
+            json.put("truncated", true);
+        }
+        json.put("tags", JSONArray.fromObject(tags));
+        json.put("defaultTag", defaultTag);
+        json.put("errorMsg", resultContainer.getErrorMsg().orElse(""));
+        TagList cached = ImageTagCache.get().peek(getTagListKey(context));
+        ResultContainer<Pattern> pattern = getFilterPattern();
+        if (cached != null && cached.getDelta() != null && !pattern.getErrorMsg().isPresent()) {
+            json.put("added", JSONArray.fromObject(filterDelta(cached.getDelta(), pattern.getValue()).getAdded()));
+        }
+        return json;
+    }
+
+    /**
+     * Returns the first tags in this parameter's ordering which match its filter and contain the query.
+     */
+    ResultContainer<List<String>> searchTags(String query, int limit, Item context) {
+        ResultContainer<List<String>> resultContainer = new ResultContainer<>(Collections.emptyList());
+
+        ResultContainer<Pattern> pattern = getFilterPattern();
+        if (pattern.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(pattern.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        ResultContainer<TagList> tags = getUnfilteredTags(context);
+        if (tags.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(tags.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        try {
+            resultContainer.setValue(tags.getValue().getIndex().search(query, pattern.getValue(), getTagOrder(), limit));
+        } catch (IllegalArgumentException e) {
+            resultContainer.setErrorMsg("Unable to cast ImageTags to versions! Versioned Ordering is not supported for this images tags.");
+        }
+        return resultContainer;
+    }
+
+    /**
+     * Returns the tags added and removed by the last change of this parameter's tags, filtered and ordered like
+     * the tags offered. Without a change seen since the tags were first fetched, both lists are empty.
+     */
+    ResultContainer<TagDelta> lookupDelta(Item context) {
+        ResultContainer<TagDelta> resultContainer = new ResultContainer<>(
+            new TagDelta(Collections.emptyList(), Collections.emptyList(), 0));
+
+        ResultContainer<Pattern> pattern = getFilterPattern();
+        if (pattern.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(pattern.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        ResultContainer<TagList> tags = getUnfilteredTags(context);
+        if (tags.getErrorMsg().isPresent()) {
+            resultContainer.setErrorMsg(tags.getErrorMsg().get());
+            return resultContainer;
+        }
+
+        TagDelta delta = tags.getValue().getDelta();
+        if (delta != null) {
+            resultContainer.setValue(filterDelta(delta, pattern.getValue()));
+        }
+        return resultContainer;
+    }
+
+    private TagDelta filterDelta(TagDelta delta, Pattern pattern) {
+        return new TagDelta(filterDeltaTags(delta.getAdded(), pattern), filterDeltaTags(delta.getRemoved(), pattern),
+            delta.getChangedAt());
+    }
+
+    private List<String> filterDeltaTags(List<String> tags, Pattern pattern) {
+        TagIndex index = TagIndex.of(tags);
+        try {
+            return index.select(pattern, getTagOrder(), 0);
+        } catch (IllegalArgumentException e) {
+            return index.select(pattern, Ordering.REV_NATURAL, 0);
+        }
+    }
+
+    private ResultContainer<TagList> getUnfilteredTags(Item context) {
+        String[] login = getLogin(context);
+        return ImageTagCache.get().getTags(getTagListKey(login), createLoader(login, context));
+    }
+
+    /**
+     * Queries the registry and replaces the cached tag list of this parameter, resolving the credential in the
+     * given context.
+     */
+    ResultContainer<TagList> refreshTags(Item context) {
+        String[] login = getLogin(context);
+        return ImageTagCache.get().refresh(getTagListKey(login), createLoader(login, context));
+    }
+
+    /**
+     * Returns the key of this parameter's tags in the {@link ImageTagCache}, for the credential resolved in the
+     * given context. Parameters share a cached tag list only if they log in to the registry the same way, as
+     * credentials with the same id may differ between folders or not be visible to a job at all.
+     */
+    TagListKey getTagListKey(Item context) {
+        return getTagListKey(getLogin(context));
+    }
+
+    private TagListKey getTagListKey(String[] login) {
+        String identity = login[0].isEmpty() && login[1].isEmpty() ? ""
+            : LOGIN_FINGERPRINT.mac(login[0] + '\0' + login[1]);
+        if (isLookedUpOnAgent()) {
+            return new TagListKey(registry, image, identity, isVerifySsl(), getViewKey() + '\0' + defaultTag);
+        }
+        return new TagListKey(registry, image, identity, isVerifySsl());
+    }
+
+    private static boolean isLookedUpOnAgent() {
+        return !config.getAgentLabel().isEmpty();
+    }
+
+    private String getViewKey() {
+        return filter + '\0' + getTagOrder() + '\0' + getMaxTags();
+    }
+
+    private ImageTagCache.Loader createLoader(String[] login, Item context) {
+        final boolean registryVerifySsl = isVerifySsl();
+        String agentLabel = config.getAgentLabel();
+        if (!agentLabel.isEmpty()) {
+            RemoteTagLookup lookup = new RemoteTagLookup(image, registry, login[0], login[1], registryVerifySsl,
+                filter, getTagOrder(), getMaxTags(), defaultTag);
+            return previous -> lookup.callOnAgent(agentLabel, context, previous);
+        }
+        return previous -> ImageTag.getTagsFromRegistry(image, registry, login[0], login[1],
+            registryVerifySsl, previous);
+    }
+
+    /**
+     * Returns user and password for the registry, both empty if there is no credential.
+     */
+    private String[] getLogin(Item context) {
+        StandardUsernamePasswordCredentials credential = findCredential(credentialId, context);
+        if (credential != null) {
+            return new String[]{credential.getUsername(), credential.getPassword().getPlainText()};
+        }
+        return new String[]{"", ""};
+    }
+
+    private static Item getCurrentContext() {
+        if (Stapler.getCurrentRequest() != null) {
+            return Stapler.getCurrentRequest().findAncestorObject(Item.class);
+        }
+        return null;
+    }
+
+    private StandardUsernamePasswordCredentials findCredential(String credentialId, Item context) {
+        if (StringUtil.isNotNullOrEmpty(credentialId)) {
+            Authentication authentication =
+                context instanceof Queue.Task ? Tasks.getAuthenticationOf2((Queue.Task) context) : ACL.SYSTEM2;
+            return CredentialCache.INSTANCE.get(credentialId, context, authentication.getName(), () -> {
+                List<StandardUsernamePasswordCredentials> lookupCredentials =
+                    CredentialsProvider.lookupCredentialsInItem(StandardUsernamePasswordCredentials.class, context,
+                        authentication, Collections.emptyList());
+                CredentialsMatcher allOf = CredentialsMatchers.allOf(CredentialsMatchers.withId(credentialId));
+                return CredentialsMatchers.firstOrNull(lookupCredentials, allOf);
+            });
         } else {
             logger.info("CredentialId is empty");
         }
@@ -181,27 +480,82 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
     public ParameterDefinition copyWithDefaultValue(ParameterValue defaultValue) {
         if (defaultValue instanceof ImageTagParameterValue) {
             ImageTagParameterValue value = (ImageTagParameterValue) defaultValue;
-            return new ImageTagParameterDefinition(getName(), getDescription(),
+            ImageTagParameterDefinition definition = new ImageTagParameterDefinition(getName(), getDescription(),
                 getImage(), getFilter(), value.getImageTag(),
                 getRegistry(), getCredentialId(), getTagOrder());
+            definition.setVerifySsl(isVerifySsl());
+            definition.maxTags = maxTags;
+            definition.validateTag = validateTag;
+            return definition;
         }
         return this;
     }
 
     @Override
     public ParameterValue createValue(String value) {
+        checkTag(value);
         return new ImageTagParameterValue(getName(), image, value, getDescription());
     }
 
     @Override
     public ParameterValue createValue(StaplerRequest2 req, JSONObject jo) {
-        return req.bindJSON(ImageTagParameterValue.class, jo);
+        ImageTagParameterValue value = req.bindJSON(ImageTagParameterValue.class, jo);
+        checkTag(value.getImageTag());
+        return value;
+    }
+
+    /**
+     * Rejects a tag not offered by this parameter, if validation is enabled. Tags in the cached tag list are
+     * accepted right away; otherwise a single manifest request asks the registry, so tags pushed since the list
+     * was fetched are accepted as well. With tags looked up on agents, the agent checks its full tag list and sends
+     * that request. If the registry can't be asked, the tag is accepted.
+     *
+     * @throws IllegalArgumentException if the tag is not offered
+     */
+    private void checkTag(String tag) {
+        if (!validateTag) {
+            return;
+        }
+        if (tag == null || !TAG_PATTERN.matcher(tag).matches()) {
+            throw new IllegalArgumentException("Invalid tag '" + tag + "' for parameter " + getName());
+        }
+        ResultContainer<Pattern> pattern = getFilterPattern();
+        if (!pattern.getErrorMsg().isPresent() && !pattern.getValue().matcher(tag).matches()) {
+            throw new IllegalArgumentException("Tag " + tag + " of parameter " + getName()
+                + " does not match the filter " + filter);
+        }
+
+        Item context = getCurrentContext();
+        String[] login = getLogin(context);
+        TagList cached = ImageTagCache.get().peek(getTagListKey(login));
+        if (cached != null && cached.getIndex().contains(tag)) {
+            return;
+        }
+        ResultContainer<Boolean> exists = isLookedUpOnAgent()
+            ? new RemoteTagLookup.TagCheck(image, registry, login[0], login[1], isVerifySsl(), tag)
+                .callOnAgent(config.getAgentLabel(), context)
+            : ImageTag.hasTag(image, registry, login[0], login[1], isVerifySsl(), tag);
+        if (exists.getErrorMsg().isPresent()) {
+            logger.warning("Accepting tag " + tag + " of parameter " + getName() + " unchecked: "
+                + exists.getErrorMsg().get());
+        } else if (!exists.getValue()) {
+            throw new IllegalArgumentException("Image " + image + " has no tag " + tag);
+        }
     }
 
     @Symbol("imageTag")
     @Extension
     public static class DescriptorImpl extends ParameterDescriptor {
 
+        private static final int FILL_ALL_TIMEOUT =
+            SystemProperties.getInteger(ImageTagParameterDefinition.class.getName() + ".fillAllTimeout", 10);
+        /** Number of tags above which the parameter page searches the tags instead of listing them all. */
+        static final int SEARCH_THRESHOLD =
+            SystemProperties.getInteger(ImageTagParameterDefinition.class.getName() + ".searchThreshold", 1000);
+        /** Number of tags returned by a search. */
+        static final int SEARCH_LIMIT =
+            Math.max(1, SystemProperties.getInteger(ImageTagParameterDefinition.class.getName() + ".searchLimit", 50));
+
         @Override
         @Nonnull
         public String getDisplayName() {
@@ -223,6 +577,126 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
             return config.getDefaultTagOrdering();
         }
 
+        @SuppressWarnings("unused")
+        public int getDefaultMaxTags() {
+            return config.getDefaultMaxTags();
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckFilter(@QueryParameter String value) {
+            if (!StringUtil.isNotNullOrEmpty(value)) {
+                return FormValidation.ok();
+            }
+            try {
+                Pattern.compile(value);
+                return FormValidation.ok();
+            } catch (PatternSyntaxException e) {
+                return FormValidation.error("Invalid regular expression: " + e.getDescription());
+            }
+        }
+
+        /**
+         * Lists the tags of an image tag parameter of a job, so the parameter page can load them asynchronously.
+         */
+        @GET
+        @SuppressWarnings("unused")
+        public HttpResponse doFillTags(@AncestorInPath Job<?, ?> job, @QueryParameter String param) {
+            if (job == null) {
+                return HttpResponses.notFound();
+            }
+            job.checkPermission(Item.BUILD);
+            ImageTagParameterDefinition definition = findDefinition(job, param);
+            if (definition == null) {
+                return HttpResponses.notFound();
+            }
+            return HttpResponses.okJSON(definition.toTagsJson(definition.lookupTags(job), job));
+        }
+
+        /**
+         * Lists the tags of all image tag parameters of a job at once, resolving them concurrently.
+         * Parameters not resolved within {@link #FILL_ALL_TIMEOUT} seconds are left out and have to be loaded
+         * through {@link #doFillTags(Job, String)}.
+         */
+        @GET
+        @SuppressWarnings("unused")
+        public HttpResponse doFillAllTags(@AncestorInPath Job<?, ?> job) {
+            if (job == null) {
+                return HttpResponses.notFound();
+            }
+            job.checkPermission(Item.BUILD);
+            ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                return HttpResponses.notFound();
+            }
+            List<ImageTagParameterDefinition> definitions = property.getParameterDefinitions().stream()
+                .filter(ImageTagParameterDefinition.class::isInstance)
+                .map(ImageTagParameterDefinition.class::cast)
+                .collect(Collectors.toList());
+
+            JSONObject json = new JSONObject();
+            ImageTagResolver.get().resolve(definitions, job, FILL_ALL_TIMEOUT, TimeUnit.SECONDS)
+                .forEach((definition, tags) -> json.put(definition.getName(), definition.toTagsJson(tags, job)));
+            return HttpResponses.okJSON(json);
+        }
+
+        /**
+         * Searches the tags of an image tag parameter of a job for the given query, for the type-ahead of the
+         * parameter page once a parameter has too many tags to list them all.
+         */
+        @GET
+        @SuppressWarnings("unused")
+        public HttpResponse doSearchTags(@AncestorInPath Job<?, ?> job, @QueryParameter String param,
+                                         @QueryParameter String q) {
+            if (job == null) {
+                return HttpResponses.notFound();
+            }
+            job.checkPermission(Item.BUILD);
+            ImageTagParameterDefinition definition = findDefinition(job, param);
+            if (definition == null) {
+                return HttpResponses.notFound();
+            }
+            ResultContainer<List<String>> tags = definition.searchTags(q != null ? q.trim() : "", SEARCH_LIMIT, job);
+            JSONObject json = new JSONObject();
+            json.put("image", definition.getImage());
+            json.put("tags", JSONArray.fromObject(tags.getValue()));
+            json.put("errorMsg", tags.getErrorMsg().orElse(""));
+            return HttpResponses.okJSON(json);
+        }
+
+        /**
+         * Lists the tags added and removed by the last change of an image tag parameter's tags, served from the
+         * tag cache, so it can be polled without downloading the tag list every time.
+         */
+        @GET
+        @SuppressWarnings("unused")
+        public HttpResponse doTagDelta(@AncestorInPath Job<?, ?> job, @QueryParameter String param) {
+            if (job == null) {
+                return HttpResponses.notFound();
+            }
+            job.checkPermission(Item.BUILD);
+            ImageTagParameterDefinition definition = findDefinition(job, param);
+            if (definition == null) {
+                return HttpResponses.notFound();
+            }
+            ResultContainer<TagDelta> delta = definition.lookupDelta(job);
+            JSONObject json = new JSONObject();
+            json.put("image", definition.getImage());
+            json.put("added", JSONArray.fromObject(delta.getValue().getAdded()));
+            json.put("removed", JSONArray.fromObject(delta.getValue().getRemoved()));
+            json.put("changedAt", delta.getValue().getChangedAt());
+            json.put("errorMsg", delta.getErrorMsg().orElse(""));
+            return HttpResponses.okJSON(json);
+        }
+
+        static ImageTagParameterDefinition findDefinition(Job<?, ?> job, String name) {
+            ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                return null;
+            }
+            ParameterDefinition definition = property.getParameterDefinition(name);
+            return definition instanceof ImageTagParameterDefinition ? (ImageTagParameterDefinition) definition : null;
+        }
+
         @SuppressWarnings("unused")
         public ListBoxModel doFillCredentialIdItems(@AncestorInPath Item context,
                                                     @QueryParameter String credentialId) {
@@ -233,7 +707,7 @@ public class ImageTagParameterDefinition extends SimpleParameterDefinition {
             }
             return new StandardListBoxModel()
                 .includeEmptyValue()
-                .includeAs(ACL.SYSTEM, context, StandardUsernameCredentials.class)
+                .includeAs(ACL.SYSTEM2, context, StandardUsernameCredentials.class)
                 .includeCurrentValue(credentialId);
         }
     }
@@ -0,0 +1,103 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagList;
+import io.jenkins.plugins.luxair.model.TagListKey;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Periodically refreshes the cached tag lists of all image tag parameters, so parameter pages are served from a
+ * warm {@link ImageTagCache}. Parameters sharing registry, image and login are refreshed only once.
+ */
+@Extension
+public class ImageTagPrefetcher extends AsyncPeriodicWork {
+
+    private static final Logger logger = Logger.getLogger(ImageTagPrefetcher.class.getName());
+    /** Share of the interval the start of each run is randomly moved by, so runs don't align with other work. */
+    private static final double JITTER = 0.1;
+
+    private long nextRun = 0;
+
+    public ImageTagPrefetcher() {
+        super("Image tag prefetch");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        // the configured interval is checked on every run, so changing it needs no restart
+        return MIN;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        int interval = ImageTagParameterConfiguration.get().getPrefetchInterval();
+        if (interval <= 0 || System.currentTimeMillis() < nextRun) {
+            return;
+        }
+        long intervalMillis = TimeUnit.MINUTES.toMillis(interval);
+        long jitter = (long) (intervalMillis * JITTER);
+        nextRun = System.currentTimeMillis() + intervalMillis + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+
+        Map<TagListKey, CompletableFuture<ResultContainer<TagList>>> refreshes = new LinkedHashMap<>();
+        for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+            if (!job.isBuildable()) {
+                continue;
+            }
+            for (ImageTagParameterDefinition definition : getImageTagParameters(job)) {
+                refreshes.computeIfAbsent(definition.getTagListKey(job), key -> ImageTagResolver.get()
+                    .submitBackground(definition.getRegistry(), () -> definition.refreshTags(job)));
+            }
+        }
+
+        int failed = 0;
+        long deadline = System.currentTimeMillis() + intervalMillis;
+        for (Map.Entry<TagListKey, CompletableFuture<ResultContainer<TagList>>> refresh : refreshes.entrySet()) {
+            try {
+                ResultContainer<TagList> result = refresh.getValue()
+                    .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (result.getErrorMsg().isPresent()) {
+                    failed++;
+                    listener.getLogger().println("Unable to prefetch tags of " + refresh.getKey() + ": "
+                        + result.getErrorMsg().get());
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                failed++;
+                listener.getLogger().println("Unable to prefetch tags of " + refresh.getKey() + ": " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.fine("Prefetched " + (refreshes.size() - failed) + " of " + refreshes.size() + " tag lists");
+    }
+
+    private static List<ImageTagParameterDefinition> getImageTagParameters(Job<?, ?> job) {
+        List<ImageTagParameterDefinition> definitions = new ArrayList<>();
+        ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+        if (property != null) {
+            for (ParameterDefinition definition : property.getParameterDefinitions()) {
+                if (definition instanceof ImageTagParameterDefinition) {
+                    definitions.add((ImageTagParameterDefinition) definition);
+                }
+            }
+        }
+        return definitions;
+    }
+}
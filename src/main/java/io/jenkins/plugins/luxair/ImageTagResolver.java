@@ -0,0 +1,157 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import jenkins.util.SystemProperties;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the tags of several image tag parameters concurrently, e.g. all parameters of one job.
+ * <p>
+ * Lookups run on a small bounded pool per registry (on virtual threads where the JDK offers them), so a single
+ * registry never sees more than a few concurrent lookups from this controller and a slow registry doesn't hold up
+ * the others. Callers wait up to a deadline; lookups not finished by then keep running in the background and fill
+ * the {@link ImageTagCache}.
+ * <p>
+ * Background work like the {@link ImageTagPrefetcher} runs on a separate, smaller pool of low priority threads, so it
+ * never queues up in front of lookups a user is waiting for.
+ */
+@Extension
+public class ImageTagResolver {
+
+    private static final Logger logger = Logger.getLogger(ImageTagResolver.class.getName());
+    private static final int MAX_CONCURRENCY_PER_REGISTRY =
+        SystemProperties.getInteger(ImageTagResolver.class.getName() + ".maxConcurrencyPerRegistry", 4);
+    private static final int MAX_BACKGROUND_CONCURRENCY_PER_REGISTRY =
+        SystemProperties.getInteger(ImageTagResolver.class.getName() + ".maxBackgroundConcurrencyPerRegistry", 1);
+
+    private final ThreadFactory threadFactory = createThreadFactory("ImageTagResolver");
+    private final ThreadFactory backgroundThreadFactory = runnable -> {
+        Thread thread = new NamingThreadFactory(new DaemonThreadFactory(), "ImageTagResolver background")
+            .newThread(runnable);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    };
+    private final Map<String, ThreadPoolExecutor> registryExecutors = new ConcurrentHashMap<>();
+    private final Map<String, ThreadPoolExecutor> backgroundExecutors = new ConcurrentHashMap<>();
+
+    public static ImageTagResolver get() {
+        return ExtensionList.lookupSingleton(ImageTagResolver.class);
+    }
+
+    /**
+     * Starts the lookup of one parameter's tags, resolving its credential in the given context.
+     */
+    public CompletableFuture<ResultContainer<List<String>>> submit(ImageTagParameterDefinition definition,
+                                                                  Item context) {
+        return submit(definition.getRegistry(), () -> definition.lookupTags(context));
+    }
+
+    /**
+     * Runs a task talking to the given registry, within the concurrency limit of that registry.
+     */
+    public <T> CompletableFuture<T> submit(String registry, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, getExecutor(registry));
+    }
+
+    /**
+     * Runs a task talking to the given registry in the background, on a pool separate from the lookups users wait
+     * for.
+     */
+    public <T> CompletableFuture<T> submitBackground(String registry, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, backgroundExecutors.computeIfAbsent(registry,
+            key -> createExecutor(Math.max(1, MAX_BACKGROUND_CONCURRENCY_PER_REGISTRY), backgroundThreadFactory)));
+    }
+
+    private Executor getExecutor(String registry) {
+        return registryExecutors.computeIfAbsent(registry,
+            key -> createExecutor(MAX_CONCURRENCY_PER_REGISTRY, threadFactory));
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, ThreadFactory factory) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Resolves the tags of all given parameters concurrently.
+     * Parameters whose lookup did not finish before the deadline are missing from the returned map.
+     */
+    public Map<ImageTagParameterDefinition, ResultContainer<List<String>>> resolve(
+        Collection<ImageTagParameterDefinition> definitions, Item context, long timeout, TimeUnit unit) {
+
+        Map<ImageTagParameterDefinition, CompletableFuture<ResultContainer<List<String>>>> pending = new LinkedHashMap<>();
+        for (ImageTagParameterDefinition definition : definitions) {
+            pending.put(definition, submit(definition, context));
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Map<ImageTagParameterDefinition, ResultContainer<List<String>>> resolved = new LinkedHashMap<>();
+        for (Map.Entry<ImageTagParameterDefinition, CompletableFuture<ResultContainer<List<String>>>> entry
+            : pending.entrySet()) {
+            try {
+                resolved.put(entry.getKey(), entry.getValue().get(
+                    Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                logger.fine("Tags of " + entry.getKey().getName() + " not resolved before the deadline");
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "Unable to resolve tags of " + entry.getKey().getName(), e.getCause());
+                ResultContainer<List<String>> failed = new ResultContainer<>(Collections.emptyList());
+                failed.setErrorMsg("Unable to resolve tags: " + e.getCause().getMessage());
+                resolved.put(entry.getKey(), failed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return resolved;
+    }
+
+    @Terminator
+    @SuppressWarnings("unused")
+    public static void shutdown() {
+        ImageTagResolver resolver = ExtensionList.lookup(ImageTagResolver.class).get(ImageTagResolver.class);
+        if (resolver != null) {
+            resolver.registryExecutors.values().forEach(ExecutorService::shutdownNow);
+            resolver.backgroundExecutors.values().forEach(ExecutorService::shutdownNow);
+        }
+    }
+
+    /**
+     * Returns a factory of virtual threads where the JDK offers them, otherwise of named daemon threads.
+     */
+    static ThreadFactory createThreadFactory(String name) {
+        try {
+            // Java 21+, looked up reflectively as long as Java 17 is supported
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return new NamingThreadFactory(new DaemonThreadFactory(), name);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.luxair.model.Ordering;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipeline step returning the filtered and ordered tags of several images, keyed by image.
+ * <p>
+ * The images are looked up concurrently by the {@link ImageTagResolver}, sharing the registry connections, tokens and
+ * {@link ImageTagCache} with the image tag parameters.
+ */
+public class ImageTagsStep extends Step {
+
+    private final List<String> images;
+    private String registry;
+    private String filter;
+    private String credentialId;
+    private Ordering tagOrder;
+    private int maxTags;
+    private boolean verifySsl = true;
+
+    @DataBoundConstructor
+    public ImageTagsStep(List<String> images) {
+        this.images = images != null ? new ArrayList<>(images) : new ArrayList<>();
+    }
+
+    public List<String> getImages() {
+        return images;
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    @DataBoundSetter
+    public void setRegistry(String registry) {
+        this.registry = registry;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    @DataBoundSetter
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    public String getCredentialId() {
+        return credentialId;
+    }
+
+    @DataBoundSetter
+    public void setCredentialId(String credentialId) {
+        this.credentialId = credentialId;
+    }
+
+    public Ordering getTagOrder() {
+        return tagOrder;
+    }
+
+    @DataBoundSetter
+    public void setTagOrder(Ordering tagOrder) {
+        this.tagOrder = tagOrder;
+    }
+
+    public int getMaxTags() {
+        return maxTags;
+    }
+
+    @DataBoundSetter
+    public void setMaxTags(int maxTags) {
+        this.maxTags = maxTags;
+    }
+
+    public boolean isVerifySsl() {
+        return verifySsl;
+    }
+
+    @DataBoundSetter
+    public void setVerifySsl(boolean verifySsl) {
+        this.verifySsl = verifySsl;
+    }
+
+    /**
+     * Returns a parameter definition for the given image with the settings of this step, so the tags are looked up
+     * exactly like the ones of an image tag parameter.
+     */
+    ImageTagParameterDefinition toDefinition(String image) {
+        ImageTagParameterDefinition definition = tagOrder != null
+            ? new ImageTagParameterDefinition("imageTags", "", image, filter, "", registry, credentialId, tagOrder)
+            : new ImageTagParameterDefinition("imageTags", "", image, filter, registry, credentialId);
+        definition.setMaxTags(maxTags);
+        definition.setVerifySsl(verifySsl);
+        return definition;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ImageTagsStep step;
+        private transient volatile List<CompletableFuture<ResultContainer<List<String>>>> lookups;
+        // the context is completed once only, either by the lookups or by stop()
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Execution(ImageTagsStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+            TaskListener listener = getContext().get(TaskListener.class);
+
+            Map<String, CompletableFuture<ResultContainer<List<String>>>> pending = new LinkedHashMap<>();
+            for (String image : step.getImages()) {
+                if (!pending.containsKey(image)) {
+                    pending.put(image, ImageTagResolver.get().submit(step.toDefinition(image), run.getParent()));
+                }
+            }
+
+            lookups = new ArrayList<>(pending.values());
+            CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+                .whenComplete((ignore, failure) -> {
+                    if (!completed.compareAndSet(false, true)) {
+                        return;
+                    }
+                    if (failure != null) {
+                        getContext().onFailure(failure);
+                        return;
+                    }
+                    Map<String, List<String>> tags = new LinkedHashMap<>();
+                    List<String> failed = new ArrayList<>();
+                    for (Map.Entry<String, CompletableFuture<ResultContainer<List<String>>>> entry
+                        : pending.entrySet()) {
+                        ResultContainer<List<String>> result = entry.getValue().join();
+                        result.getErrorMsg().ifPresent(errorMsg ->
+                            listener.getLogger().println("Tags of " + entry.getKey() + ": " + errorMsg));
+                        if (result.getErrorMsg().isPresent() && result.getValue().isEmpty()) {
+                            failed.add(entry.getKey());
+                        }
+                        tags.put(entry.getKey(), new ArrayList<>(result.getValue()));
+                    }
+                    if (failed.isEmpty()) {
+                        getContext().onSuccess(tags);
+                    } else {
+                        getContext().onFailure(new AbortException("Unable to look up the tags of " + failed));
+                    }
+                });
+            return false;
+        }
+
+        @Override
+        public void stop(Throwable cause) throws Exception {
+            List<CompletableFuture<ResultContainer<List<String>>>> running = lookups;
+            if (running != null) {
+                // lookups not started yet are skipped, running ones still fill the tag cache
+                running.forEach(lookup -> lookup.cancel(true));
+            }
+            if (completed.compareAndSet(false, true)) {
+                super.stop(cause);
+            }
+        }
+
+        @Override
+        public void onResume() {
+            if (completed.compareAndSet(false, true)) {
+                getContext().onFailure(
+                    new AbortException("Resumed while looking up image tags, the step has to be run again"));
+            }
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "imageTags";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Look up the tags of container images";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+    }
+}
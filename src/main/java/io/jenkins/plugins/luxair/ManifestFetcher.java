@@ -0,0 +1,147 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Fetches image metadata of many tags at once, e.g. the creation times needed to order tags by
+ * {@link io.jenkins.plugins.luxair.model.Ordering#CREATED_DESC}.
+ * <p>
+ * Fetches run on a small bounded pool, so they reuse the pooled keep-alive connections of the
+ * {@link RegistryClients} instead of opening one per tag. Results are cached per digest: manifests and configs
+ * are content addressed, so a digest's creation time never changes and only new tags cost registry calls.
+ * The number of tags looked up per view is bounded as well, see {@link #getCandidateLimit(int)}.
+ */
+@Extension
+public class ManifestFetcher {
+
+    private static final Logger logger = Logger.getLogger(ManifestFetcher.class.getName());
+    private static final int CONCURRENCY =
+        Math.max(1, SystemProperties.getInteger(ManifestFetcher.class.getName() + ".concurrency", 8));
+    private static final int CANDIDATE_FACTOR =
+        Math.max(1, SystemProperties.getInteger(ManifestFetcher.class.getName() + ".candidateFactor", 4));
+    private static final int MAX_CANDIDATES =
+        Math.max(1, SystemProperties.getInteger(ManifestFetcher.class.getName() + ".maxCandidates", 500));
+    private static final int MAX_CACHED_DIGESTS = 100000;
+
+    private final Map<String, Long> createdByDigest = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_CACHED_DIGESTS;
+        }
+    };
+    private final ExecutorService executor;
+
+    public ManifestFetcher() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(CONCURRENCY, CONCURRENCY, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), ImageTagResolver.createThreadFactory("ManifestFetcher"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    public static ManifestFetcher get() {
+        return ExtensionList.lookupSingleton(ManifestFetcher.class);
+    }
+
+    /**
+     * Returns how many tags at most are looked up to pick the given number of tags, a multiple of it but never more
+     * than a fixed maximum.
+     */
+    static int getCandidateLimit(int maxTags) {
+        return maxTags > 0 ? (int) Math.min(MAX_CANDIDATES, (long) maxTags * CANDIDATE_FACTOR) : MAX_CANDIDATES;
+    }
+
+    Long getCreated(String digest) {
+        synchronized (createdByDigest) {
+            return createdByDigest.get(digest);
+        }
+    }
+
+    void putCreated(String digest, long created) {
+        synchronized (createdByDigest) {
+            createdByDigest.put(digest, created);
+        }
+    }
+
+    /**
+     * Looks up the creation time of all given tags concurrently, waiting up to the given timeout.
+     * Tags without a creation time are mapped to {@code null}, tags whose lookup failed or did not finish in time
+     * are missing from the result.
+     *
+     * @throws RegistryThrottle.RegistryUnavailableException if the registry stopped accepting calls meanwhile
+     */
+    Map<String, Long> getCreationTimes(List<String> tags, Lookup lookup, long timeout, TimeUnit unit)
+        throws RegistryThrottle.RegistryUnavailableException {
+        List<CompletableFuture<Long>> pending = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return lookup.getCreated(tag);
+                } catch (RegistryThrottle.RegistryUnavailableException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        Map<String, Long> created = new HashMap<>();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int timedOut = 0;
+        try {
+            for (int i = 0; i < tags.size(); i++) {
+                try {
+                    created.put(tags.get(i),
+                        pending.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    timedOut++;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RegistryThrottle.RegistryUnavailableException) {
+                        throw (RegistryThrottle.RegistryUnavailableException) e.getCause();
+                    }
+                    logger.fine("Unable to fetch the creation time of " + tags.get(i) + ": " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        if (timedOut > 0) {
+            logger.fine("Creation times of " + timedOut + " tags not fetched in time");
+        }
+        return created;
+    }
+
+    @Terminator
+    @SuppressWarnings("unused")
+    public static void shutdown() {
+        ManifestFetcher fetcher = ExtensionList.lookup(ManifestFetcher.class).get(ManifestFetcher.class);
+        if (fetcher != null) {
+            fetcher.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Looks up the creation time of one tag, returning {@code null} if the tag has none.
+     */
+    @FunctionalInterface
+    interface Lookup {
+        Long getCreated(String tag) throws RegistryThrottle.RegistryUnavailableException;
+    }
+}
@@ -0,0 +1,179 @@
+package io.jenkins.plugins.luxair;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the {@code Www-Authenticate} challenge of each registry and the bearer tokens handed out by their
+ * token realms, so consecutive tag lookups don't have to probe {@code /v2/} and fetch a fresh token every time.
+ */
+class RegistryAuthCache {
+
+    static final RegistryAuthCache INSTANCE = new RegistryAuthCache();
+
+    /** Lifetime of a token response not advertising {@code expires_in}, as defined by the token spec. */
+    private static final long DEFAULT_TOKEN_LIFETIME = TimeUnit.SECONDS.toMillis(60);
+    private static final long MAX_REFRESH_MARGIN = TimeUnit.SECONDS.toMillis(30);
+    private static final long CHALLENGE_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    private static final long PRUNE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<String, Challenge> challenges = new ConcurrentHashMap<>();
+    private final Map<TokenKey, Token> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong nextPrune = new AtomicLong();
+
+    String[] getChallenge(String registry) {
+        Challenge challenge = challenges.get(registry);
+        if (challenge == null || challenge.expiresAt < System.currentTimeMillis()) {
+            return null;
+        }
+        return challenge.authService.clone();
+    }
+
+    void putChallenge(String registry, String[] authService) {
+        if (authService[0].isEmpty()) {
+            return;
+        }
+        challenges.put(registry,
+            new Challenge(authService.clone(), System.currentTimeMillis() + CHALLENGE_LIFETIME));
+        pruneExpired();
+    }
+
+    String getToken(String realm, String service, String scope, String user, String password) {
+        TokenKey key = new TokenKey(realm, service, scope, user, password);
+        Token token = tokens.get(key);
+        if (token == null) {
+            return null;
+        }
+        if (token.refreshAt < System.currentTimeMillis()) {
+            tokens.remove(key, token);
+            return null;
+        }
+        return token.value;
+    }
+
+    /**
+     * Stores a token using the {@code expires_in} and {@code issued_at} values of the token response.
+     */
+    void putToken(String realm, String service, String scope, String user, String password,
+                  String value, Integer expiresIn, String issuedAt) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long lifetime = expiresIn != null && expiresIn > 0
+            ? TimeUnit.SECONDS.toMillis(expiresIn) : DEFAULT_TOKEN_LIFETIME;
+        long issued = Math.min(now, parseIssuedAt(issuedAt, now));
+        long refreshAt = issued + lifetime - Math.min(MAX_REFRESH_MARGIN, lifetime / 10);
+        if (refreshAt > now) {
+            tokens.put(new TokenKey(realm, service, scope, user, password), new Token(value, refreshAt));
+        }
+        pruneExpired();
+    }
+
+    /**
+     * Drops expired challenges and tokens, at most once per {@link #PRUNE_INTERVAL}. Tokens of scopes requested
+     * only once would otherwise never be looked up again and stay forever.
+     */
+    private void pruneExpired() {
+        long now = System.currentTimeMillis();
+        long next = nextPrune.get();
+        if (now < next || !nextPrune.compareAndSet(next, now + PRUNE_INTERVAL)) {
+            return;
+        }
+        challenges.values().removeIf(challenge -> challenge.expiresAt < now);
+        tokens.values().removeIf(token -> token.refreshAt < now);
+    }
+
+    /**
+     * Drops everything known about a registry, e.g. after it rejected a cached token.
+     */
+    void invalidate(String registry) {
+        String[] authService = getChallenge(registry);
+        challenges.remove(registry);
+        if (authService != null) {
+            tokens.keySet().removeIf(key -> key.realm.equals(authService[1]));
+        }
+    }
+
+    private static long parseIssuedAt(String issuedAt, long fallback) {
+        if (issuedAt == null || issuedAt.isEmpty()) {
+            return fallback;
+        }
+        try {
+            return OffsetDateTime.parse(issuedAt).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+
+    private static final class Challenge {
+        private final String[] authService;
+        private final long expiresAt;
+
+        private Challenge(String[] authService, long expiresAt) {
+            this.authService = authService;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Token {
+        private final String value;
+        private final long refreshAt;
+
+        private Token(String value, long refreshAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    private static final class TokenKey {
+        private final String realm;
+        private final String service;
+        private final String scope;
+        private final String user;
+        // a digest of the password, so a rotated secret never reuses a token issued for the old one
+        private final String secret;
+
+        private TokenKey(String realm, String service, String scope, String user, String password) {
+            this.realm = realm;
+            this.service = service;
+            this.scope = scope;
+            this.user = user;
+            this.secret = digest(password);
+        }
+
+        private static String digest(String password) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                return Base64.getEncoder().encodeToString(md.digest(password.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            TokenKey that = (TokenKey) o;
+
+            return realm.equals(that.realm) && service.equals(that.service) && scope.equals(that.scope)
+                && user.equals(that.user) && secret.equals(that.secret);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(realm, service, scope, user, secret);
+        }
+    }
+}
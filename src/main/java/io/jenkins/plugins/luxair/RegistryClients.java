@@ -0,0 +1,152 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import jenkins.util.Timer;
+import kong.unirest.Interceptor;
+import kong.unirest.Unirest;
+import kong.unirest.UnirestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Owns the long living HTTP clients used to talk to registries, one per registry and SSL verification setting.
+ * <p>
+ * Each client keeps its own connection pool, so connections and TLS sessions are reused across lookups and
+ * concurrent lookups never tear down each others connections. Clients request compressed responses and decompress
+ * them transparently, except the tag list clients, see {@link #getTagListClient(String, boolean)}.
+ */
+@Extension
+public class RegistryClients {
+
+    private static final Logger logger = Logger.getLogger(RegistryClients.class.getName());
+    private static final Interceptor errorInterceptor = new ErrorInterceptor();
+    private static final int MAX_CONNECTIONS = 50;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int RETIRE_DELAY_SECONDS = 60;
+
+    private final Map<ClientKey, UnirestInstance> clients = new ConcurrentHashMap<>();
+
+    public static RegistryClients get() {
+        return ExtensionList.lookupSingleton(RegistryClients.class);
+    }
+
+    public UnirestInstance getClient(String registry, boolean verifySsl) {
+        return clients.computeIfAbsent(new ClientKey(registry, verifySsl, Kind.DEFAULT), key -> {
+            ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+            return createClient(verifySsl, config.getConnectTimeout(), config.getReadTimeout());
+        });
+    }
+
+    /**
+     * Returns a client for the tag list pages only, which leaves their decompression to the tag list parser.
+     * The HTTP client would otherwise decompress transparently and drop the {@code Content-Encoding} and
+     * {@code Content-Length} headers, leaving no way to count the bytes actually transferred.
+     */
+    public UnirestInstance getTagListClient(String registry, boolean verifySsl) {
+        return clients.computeIfAbsent(new ClientKey(registry, verifySsl, Kind.TAG_LIST), key -> {
+            ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+            return createTagListClient(verifySsl, config.getConnectTimeout(), config.getReadTimeout());
+        });
+    }
+
+    /**
+     * Returns a client not following redirects, for blob downloads: registries redirect those to storage backends,
+     * which reject the registry's {@code Authorization} header the client would otherwise send along.
+     */
+    public UnirestInstance getBlobClient(String registry, boolean verifySsl) {
+        return clients.computeIfAbsent(new ClientKey(registry, verifySsl, Kind.BLOB), key -> {
+            ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+            UnirestInstance client = createClient(verifySsl, config.getConnectTimeout(), config.getReadTimeout());
+            client.config().followRedirects(false);
+            return client;
+        });
+    }
+
+    /**
+     * Creates a standalone client, e.g. for callers running outside of a Jenkins controller.
+     */
+    static UnirestInstance createClient(boolean verifySsl, int connectTimeoutSeconds, int readTimeoutSeconds) {
+        UnirestInstance client = Unirest.spawnInstance();
+        client.config()
+            .enableCookieManagement(false)
+            .interceptor(errorInterceptor)
+            .verifySsl(verifySsl)
+            .connectTimeout((int) TimeUnit.SECONDS.toMillis(connectTimeoutSeconds))
+            .socketTimeout((int) TimeUnit.SECONDS.toMillis(readTimeoutSeconds))
+            .concurrency(MAX_CONNECTIONS, MAX_CONNECTIONS_PER_ROUTE);
+        return client;
+    }
+
+    /**
+     * Creates a standalone client for tag list pages, see {@link #getTagListClient(String, boolean)}.
+     */
+    static UnirestInstance createTagListClient(boolean verifySsl, int connectTimeoutSeconds, int readTimeoutSeconds) {
+        UnirestInstance client = createClient(verifySsl, connectTimeoutSeconds, readTimeoutSeconds);
+        // the pages ask for compression themselves and are decompressed while parsing, see ImageTag
+        client.config().requestCompression(false);
+        return client;
+    }
+
+    /**
+     * Replaces all clients, e.g. after the timeouts got reconfigured.
+     * Retired clients are shut down with a delay, so lookups still using them can finish.
+     */
+    public void reset() {
+        List<UnirestInstance> retired = new ArrayList<>(clients.values());
+        clients.clear();
+        if (!retired.isEmpty()) {
+            logger.fine("Retiring " + retired.size() + " registry clients");
+            Timer.get().schedule(() -> retired.forEach(UnirestInstance::shutDown),
+                RETIRE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @Terminator
+    @SuppressWarnings("unused")
+    public static void shutdown() {
+        RegistryClients registryClients = ExtensionList.lookup(RegistryClients.class).get(RegistryClients.class);
+        if (registryClients != null) {
+            registryClients.clients.values().forEach(UnirestInstance::shutDown);
+            registryClients.clients.clear();
+        }
+    }
+
+    private enum Kind {
+        DEFAULT, BLOB, TAG_LIST
+    }
+
+    private static final class ClientKey {
+        private final String registry;
+        private final boolean verifySsl;
+        private final Kind kind;
+
+        private ClientKey(String registry, boolean verifySsl, Kind kind) {
+            this.registry = registry;
+            this.verifySsl = verifySsl;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ClientKey that = (ClientKey) o;
+
+            return verifySsl == that.verifySsl && kind == that.kind && registry.equals(that.registry);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(registry, verifySsl, kind);
+        }
+    }
+}
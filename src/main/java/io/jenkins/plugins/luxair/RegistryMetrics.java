@@ -0,0 +1,162 @@
+package io.jenkins.plugins.luxair;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the registry calls and tag processing, per registry.
+ * <p>
+ * Listed on the {@link ImageTagMetricsLink} page and, totalled over all registries, exposed through the metrics plugin
+ * by the {@link ImageTagMetricProvider} when it is installed.
+ */
+public class RegistryMetrics {
+
+    public static final RegistryMetrics INSTANCE = new RegistryMetrics();
+
+    private final Map<String, Registry> registries = new ConcurrentSkipListMap<>();
+
+    public Registry forRegistry(String registry) {
+        Registry stats = registries.get(registry);
+        return stats != null ? stats : registries.computeIfAbsent(registry, Registry::new);
+    }
+
+    public Collection<Registry> getRegistries() {
+        return registries.values();
+    }
+
+    public static final class Registry {
+        private final String name;
+        private final Timer authProbe = new Timer();
+        private final Timer tokenFetch = new Timer();
+        private final Timer tagList = new Timer();
+        private final Timer filter = new Timer();
+        private final Timer manifests = new Timer();
+        private final LongAdder pages = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private Registry(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Timer getAuthProbe() {
+            return authProbe;
+        }
+
+        public Timer getTokenFetch() {
+            return tokenFetch;
+        }
+
+        public Timer getTagList() {
+            return tagList;
+        }
+
+        public Timer getFilter() {
+            return filter;
+        }
+
+        public Timer getManifests() {
+            return manifests;
+        }
+
+        public long getPages() {
+            return pages.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses.sum();
+        }
+
+        /**
+         * Returns the share of cache hits in percent, or -1 if the cache was never asked.
+         */
+        public long getCacheHitRatio() {
+            long hits = cacheHits.sum();
+            long total = hits + cacheMisses.sum();
+            return total > 0 ? hits * 100 / total : -1;
+        }
+
+        /**
+         * Returns the number of failed calls per HTTP status, where status 0 stands for calls without a response.
+         */
+        public Map<Integer, Long> getErrors() {
+            Map<Integer, Long> result = new TreeMap<>();
+            errors.forEach((status, count) -> result.put(status, count.sum()));
+            return result;
+        }
+
+        public void recordPage(long pageBytes) {
+            pages.increment();
+            bytes.add(pageBytes);
+        }
+
+        public void recordCacheHit() {
+            cacheHits.increment();
+        }
+
+        public void recordCacheMiss() {
+            cacheMisses.increment();
+        }
+
+        public void recordError(int status) {
+            errors.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Timer() {
+        }
+
+        /**
+         * Records a call which started at the given {@link System#nanoTime()}.
+         */
+        public void record(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMeanMillis() {
+            long calls = count.sum();
+            return calls > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / calls) : 0;
+        }
+
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+
+}
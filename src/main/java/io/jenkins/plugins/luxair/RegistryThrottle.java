@@ -0,0 +1,229 @@
+package io.jenkins.plugins.luxair;
+
+import jenkins.util.SystemProperties;
+import kong.unirest.Headers;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the calls to each registry within the configured request rate and backs off when a registry throttles
+ * ({@code 429}) or fails ({@code 502}, {@code 503}, {@code 504}).
+ * <p>
+ * The backoff is shared by all callers of a registry: once it asks to slow down, every request waits for the same
+ * point in time instead of retrying on its own. After repeated failures, or when a registry asks for a longer break
+ * than callers are willing to wait, the circuit opens and calls fail fast until a single probe succeeds again.
+ * Meanwhile the {@link ImageTagCache} keeps serving the last good tag lists.
+ */
+class RegistryThrottle {
+
+    static final RegistryThrottle INSTANCE = new RegistryThrottle();
+
+    private static final Logger logger = Logger.getLogger(RegistryThrottle.class.getName());
+    private static final String PROPERTY_PREFIX = RegistryThrottle.class.getName();
+    private static final int MAX_RETRIES = SystemProperties.getInteger(PROPERTY_PREFIX + ".maxRetries", 3);
+    private static final long MAX_WAIT = TimeUnit.SECONDS.toMillis(
+        SystemProperties.getInteger(PROPERTY_PREFIX + ".maxWait", 10));
+    private static final int FAILURE_THRESHOLD = SystemProperties.getInteger(PROPERTY_PREFIX + ".failureThreshold", 5);
+    private static final long OPEN_DURATION = TimeUnit.SECONDS.toMillis(
+        SystemProperties.getInteger(PROPERTY_PREFIX + ".openDuration", 60));
+    private static final long BASE_BACKOFF = 500;
+
+    private final Map<String, Registry> registries = new ConcurrentHashMap<>();
+    // set by the configuration on the controller and by the lookups running on agents, which have no configuration
+    private volatile int requestsPerMinute;
+
+    Registry forRegistry(String registry) {
+        return registries.computeIfAbsent(registry, Registry::new);
+    }
+
+    void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
+    private int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /**
+     * Thrown instead of calling a registry that is throttled for longer than callers wait, or whose circuit is open.
+     */
+    static final class RegistryUnavailableException extends Exception {
+        RegistryUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    static final class Registry {
+        private final String name;
+        // token bucket, refilled at the configured rate and holding up to a tenth of a minute's requests
+        private double permits;
+        private long refilledAt;
+        // no call starts before this time, set by the backoff and rate limit headers
+        private long blockedUntil;
+        private int failures;
+        private long openUntil;
+        private boolean probing;
+
+        private Registry(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Waits until a call to the registry is allowed.
+         */
+        void acquire() throws RegistryUnavailableException {
+            long wait;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (openUntil > now) {
+                    throw new RegistryUnavailableException("Registry " + name + " is unavailable, retrying in "
+                        + TimeUnit.MILLISECONDS.toSeconds(openUntil - now + 999) + "s");
+                }
+                if (openUntil > 0) {
+                    // half open: let a single probe through
+                    if (probing) {
+                        throw new RegistryUnavailableException("Registry " + name + " is unavailable, retrying shortly");
+                    }
+                    probing = true;
+                }
+
+                wait = Math.max(0, blockedUntil - now);
+                int rate = INSTANCE.getRequestsPerMinute();
+                if (rate > 0) {
+                    refill(now, rate);
+                    permits--;
+                    if (permits < 0) {
+                        wait = Math.max(wait, (long) Math.ceil(-permits * TimeUnit.MINUTES.toMillis(1) / rate));
+                    }
+                }
+                if (wait > MAX_WAIT) {
+                    if (rate > 0) {
+                        permits++;
+                    }
+                    probing = false;
+                    throw new RegistryUnavailableException("Registry " + name + " is throttling requests, retrying in "
+                        + TimeUnit.MILLISECONDS.toSeconds(wait + 999) + "s");
+                }
+            }
+
+            if (wait > 0) {
+                logger.fine("Waiting " + wait + "ms for " + name);
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    abort();
+                    throw new RegistryUnavailableException("Interrupted while waiting for " + name);
+                }
+            }
+        }
+
+        /**
+         * Gives back a call allowed by {@link #acquire()} which is not made after all, so a half open circuit lets
+         * the next caller probe the registry instead.
+         */
+        synchronized void abort() {
+            probing = false;
+        }
+
+        private void refill(long now, int rate) {
+            double burst = Math.max(1, rate / 10.0);
+            if (refilledAt == 0) {
+                permits = burst;
+            } else {
+                permits = Math.min(burst, permits + (now - refilledAt) * rate / (double) TimeUnit.MINUTES.toMillis(1));
+            }
+            refilledAt = now;
+        }
+
+        /**
+         * Records the outcome of a call, with status {@code 0} for calls without a response.
+         *
+         * @return whether the call should be retried, after waiting in {@link #acquire()} again
+         */
+        synchronized boolean onResponse(int status, Headers headers, int attempt) {
+            long now = System.currentTimeMillis();
+            probing = false;
+
+            if (status == 0 || status == 429 || status == 502 || status == 503 || status == 504) {
+                failures++;
+                long delay = parseRetryAfter(headers.getFirst("Retry-After"), now);
+                if (delay < 0) {
+                    // exponential backoff, jittered so throttled callers of different registries don't align
+                    long cap = BASE_BACKOFF << Math.min(attempt, 16);
+                    delay = ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+                }
+                blockedUntil = Math.max(blockedUntil, now + delay);
+                if (failures >= FAILURE_THRESHOLD || delay > MAX_WAIT) {
+                    openUntil = Math.max(now + OPEN_DURATION, blockedUntil);
+                    logger.warning("Registry " + name + " failed " + failures + " times in a row (HTTP status "
+                        + status + "), pausing calls for " + TimeUnit.MILLISECONDS.toSeconds(openUntil - now) + "s");
+                    return false;
+                }
+                // calls without a response already waited for the timeouts, retrying only makes that worse
+                return status != 0 && attempt < MAX_RETRIES;
+            }
+
+            failures = 0;
+            openUntil = 0;
+            if ("0".equals(parseRateLimitValue(headers.getFirst("RateLimit-Remaining")))) {
+                long reset = parseRateLimitSeconds(headers.getFirst("RateLimit-Reset"));
+                long delay = reset >= 0 ? TimeUnit.SECONDS.toMillis(reset) : OPEN_DURATION;
+                blockedUntil = Math.max(blockedUntil, now + delay);
+                logger.warning("Request quota of " + name + " used up, pausing calls for "
+                    + TimeUnit.MILLISECONDS.toSeconds(delay) + "s");
+            }
+            return false;
+        }
+
+        /**
+         * Parses a {@code Retry-After} header given in seconds or as HTTP date, returning -1 if there is none.
+         */
+        private static long parseRetryAfter(String value, long now) {
+            if (value == null || value.trim().isEmpty()) {
+                return -1;
+            }
+            try {
+                return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
+            } catch (NumberFormatException e) {
+                try {
+                    long at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                    return Math.max(0, at - now);
+                } catch (DateTimeParseException ignore) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Strips parameters like the window ({@code 76;w=21600}) off a rate limit header.
+         */
+        private static String parseRateLimitValue(String value) {
+            if (value == null) {
+                return null;
+            }
+            int separator = value.indexOf(';');
+            return (separator >= 0 ? value.substring(0, separator) : value).trim();
+        }
+
+        private static long parseRateLimitSeconds(String value) {
+            String seconds = parseRateLimitValue(value);
+            if (seconds == null) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(seconds);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
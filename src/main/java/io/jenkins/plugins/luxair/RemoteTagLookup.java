@@ -0,0 +1,312 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.model.Computer;
+import hudson.model.Item;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.queue.Tasks;
+import hudson.remoting.VirtualChannel;
+import hudson.security.ACL;
+import io.jenkins.plugins.luxair.model.Ordering;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagList;
+import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
+import kong.unirest.UnirestInstance;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Looks up the tags of an image on an agent, for registries only reachable from agents or to keep the registry
+ * traffic off the controller.
+ * <p>
+ * The agent runs the auth probe, token fetch and tag listing, then filters and orders the tags itself: only the tags
+ * offered by the parameter travel back over the channel. Clients and the last full tag list of each image are kept
+ * in the agent JVM, so repeated lookups reuse connections and send conditional requests. A tag list the registry
+ * reports unchanged is answered without any tags, the controller keeps its cached list then.
+ * <p>
+ * Tags entered by hand are checked on the agent as well, see {@link TagCheck}: against its full cached tag list, or
+ * else by a manifest request the agent sends.
+ * <p>
+ * The resolved registry login is sent to the agent in plain text, so only agents the job's authentication may build
+ * on are chosen. As the controller only gets the selected tags, it reports no added or removed tags for them.
+ * Everything the agent needs, including the configured request rate, is passed along: agents have no configuration.
+ */
+class RemoteTagLookup extends MasterToSlaveCallable<ResultContainer<RemoteTagLookup.Result>, RuntimeException> {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(RemoteTagLookup.class.getName());
+    private static final int MAX_CACHED_LISTS = 100;
+
+    // state of the agent JVM, not sent over the channel
+    private static final Map<String, UnirestInstance> clients = new ConcurrentHashMap<>();
+    private static final Map<String, TagList> tagLists = new LinkedHashMap<String, TagList>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TagList> eldest) {
+            return size() > MAX_CACHED_LISTS;
+        }
+    };
+
+    private final String image;
+    private final String registry;
+    private final String user;
+    private final String password;
+    private final boolean verifySsl;
+    private final String filter;
+    private final Ordering ordering;
+    private final int maxTags;
+    private final String defaultTag;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int pageSize;
+    private final int maxTagCount;
+    private final int requestsPerMinute;
+    private String previousEtag;
+    private String previousLastModified;
+
+    RemoteTagLookup(String image, String registry, String user, String password, boolean verifySsl,
+                    String filter, Ordering ordering, int maxTags, String defaultTag) {
+        ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+        this.image = image;
+        this.registry = registry;
+        this.user = user;
+        this.password = password;
+        this.verifySsl = verifySsl;
+        this.filter = filter;
+        this.ordering = ordering;
+        this.maxTags = maxTags;
+        this.defaultTag = defaultTag;
+        this.connectTimeout = config.getConnectTimeout();
+        this.readTimeout = config.getReadTimeout();
+        this.pageSize = config.getTagPageSize();
+        this.maxTagCount = config.getMaxTagCount();
+        this.requestsPerMinute = config.getRequestsPerMinute();
+    }
+
+    /**
+     * Runs the lookup on an online agent matching the label which the given job may build on, choosing one at random
+     * to spread the load. If the registry reports the tags unchanged since the {@code previous} list was fetched,
+     * that list is returned.
+     */
+    ResultContainer<TagList> callOnAgent(String labelExpression, Item context, TagList previous) {
+        ResultContainer<TagList> container = new ResultContainer<>(TagList.empty());
+        VirtualChannel channel = getChannel(labelExpression, context);
+        if (channel == null) {
+            container.setErrorMsg("No agent with label '" + labelExpression + "' the job may build on is online to "
+                + "query " + registry);
+            return container;
+        }
+
+        if (previous != null) {
+            previousEtag = previous.getEtag();
+            previousLastModified = previous.getLastModified();
+        }
+        long start = System.nanoTime();
+        try {
+            ResultContainer<Result> result = channel.call(this);
+            if (result.getErrorMsg().isPresent()) {
+                container.setErrorMsg(result.getErrorMsg().get());
+            } else if (result.getValue().unchanged && previous != null) {
+                container.setValue(previous);
+            } else {
+                Result tags = result.getValue();
+                container.setValue(new TagList(Arrays.asList(tags.tags), tags.etag, tags.lastModified));
+            }
+        } catch (IOException e) {
+            logger.fine("Unable to query " + registry + " on an agent: " + e);
+            container.setErrorMsg("Unable to query " + registry + " on agent: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            container.setErrorMsg("Interrupted while querying " + registry + " on agent");
+        } finally {
+            RegistryMetrics.INSTANCE.forRegistry(registry).getTagList().record(start);
+        }
+        return container;
+    }
+
+    private static VirtualChannel getChannel(String labelExpression, Item context) {
+        Label label = Jenkins.get().getLabel(labelExpression);
+        if (label == null) {
+            return null;
+        }
+        // the job's credentials must not travel to agents the job itself isn't allowed to use
+        Authentication authentication =
+            context instanceof Queue.Task ? Tasks.getAuthenticationOf2((Queue.Task) context) : ACL.SYSTEM2;
+        List<VirtualChannel> channels = new ArrayList<>();
+        for (Node node : label.getNodes()) {
+            if (!node.getACL().hasPermission2(authentication, Computer.BUILD)) {
+                continue;
+            }
+            Computer computer = node.toComputer();
+            VirtualChannel channel = computer != null && computer.isOnline() ? computer.getChannel() : null;
+            if (channel != null) {
+                channels.add(channel);
+            }
+        }
+        return channels.isEmpty() ? null : channels.get(ThreadLocalRandom.current().nextInt(channels.size()));
+    }
+
+    private static String getClientKey(String registry, boolean verifySsl, int connectTimeout, int readTimeout) {
+        return registry + '\0' + verifySsl + '\0' + connectTimeout + '\0' + readTimeout;
+    }
+
+    private static String getListKey(String registry, String image, String user) {
+        return registry + '\0' + image + '\0' + user;
+    }
+
+    private static TagList getCachedList(String listKey) {
+        synchronized (tagLists) {
+            return tagLists.get(listKey);
+        }
+    }
+
+    @Override
+    public ResultContainer<Result> call() {
+        ResultContainer<Result> container = new ResultContainer<>(null);
+        RegistryThrottle.INSTANCE.setRequestsPerMinute(requestsPerMinute);
+        String clientKey = getClientKey(registry, verifySsl, connectTimeout, readTimeout);
+        UnirestInstance client = clients.computeIfAbsent(clientKey,
+            key -> RegistryClients.createClient(verifySsl, connectTimeout, readTimeout));
+        UnirestInstance tagListClient = clients.computeIfAbsent(clientKey + "\0tags",
+            key -> RegistryClients.createTagListClient(verifySsl, connectTimeout, readTimeout));
+
+        String listKey = getListKey(registry, image, user);
+        TagList cached = getCachedList(listKey);
+        ResultContainer<TagList> tags = ImageTag.getTagsFromRegistry(client, tagListClient, image, registry, user,
+            password, pageSize, maxTagCount, cached);
+        if (tags.getErrorMsg().isPresent()) {
+            container.setErrorMsg(tags.getErrorMsg().get());
+            return container;
+        }
+        TagList tagList = tags.getValue();
+        synchronized (tagLists) {
+            tagLists.put(listKey, tagList);
+        }
+        if (tagList.hasValidators() && Objects.equals(tagList.getEtag(), previousEtag)
+            && Objects.equals(tagList.getLastModified(), previousLastModified)) {
+            container.setValue(new Result(new String[0], tagList.getEtag(), tagList.getLastModified(), true));
+            return container;
+        }
+
+        ResultContainer<Pattern> pattern = ImageTag.compileFilter(filter);
+        if (pattern.getErrorMsg().isPresent()) {
+            container.setErrorMsg(pattern.getErrorMsg().get());
+            return container;
+        }
+        ResultContainer<List<String>> filtered = ImageTag.filterTags(tagList.getIndex(), pattern.getValue(),
+            ordering, maxTags);
+        if (filtered.getErrorMsg().isPresent()) {
+            container.setErrorMsg(filtered.getErrorMsg().get());
+            return container;
+        }
+
+        List<String> selected = ImageTag.withDefaultTag(filtered.getValue(), tagList.getIndex(), pattern.getValue(),
+            maxTags, defaultTag);
+        container.setValue(new Result(selected.toArray(new String[0]), tagList.getEtag(),
+            tagList.getLastModified(), false));
+        return container;
+    }
+
+    /**
+     * Checks on an agent whether an image has a tag. The controller only caches the tags the agent selected, so the
+     * tag is looked up in the full tag list the agent cached, and only if it is not there, the agent asks the
+     * registry with a single manifest request, just like {@link ImageTag#hasTag} does on the controller.
+     */
+    static final class TagCheck extends MasterToSlaveCallable<ResultContainer<Boolean>, RuntimeException> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String image;
+        private final String registry;
+        private final String user;
+        private final String password;
+        private final boolean verifySsl;
+        private final String tag;
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final int requestsPerMinute;
+
+        TagCheck(String image, String registry, String user, String password, boolean verifySsl, String tag) {
+            ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+            this.image = image;
+            this.registry = registry;
+            this.user = user;
+            this.password = password;
+            this.verifySsl = verifySsl;
+            this.tag = tag;
+            this.connectTimeout = config.getConnectTimeout();
+            this.readTimeout = config.getReadTimeout();
+            this.requestsPerMinute = config.getRequestsPerMinute();
+        }
+
+        /**
+         * Runs the check on an online agent matching the label which the given job may build on. The value is only
+         * meaningful if there is no error message.
+         */
+        ResultContainer<Boolean> callOnAgent(String labelExpression, Item context) {
+            ResultContainer<Boolean> container = new ResultContainer<>(false);
+            VirtualChannel channel = getChannel(labelExpression, context);
+            if (channel == null) {
+                container.setErrorMsg("No agent with label '" + labelExpression + "' the job may build on is online "
+                    + "to query " + registry);
+                return container;
+            }
+            try {
+                return channel.call(this);
+            } catch (IOException e) {
+                logger.fine("Unable to check tag " + tag + " of " + image + " on an agent: " + e);
+                container.setErrorMsg("Unable to check tag " + tag + " of " + image + " on agent: "
+                    + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                container.setErrorMsg("Interrupted while checking tag " + tag + " of " + image + " on agent");
+            }
+            return container;
+        }
+
+        @Override
+        public ResultContainer<Boolean> call() {
+            TagList cached = getCachedList(getListKey(registry, image, user));
+            if (cached != null && cached.getIndex().contains(tag)) {
+                return new ResultContainer<>(true);
+            }
+            RegistryThrottle.INSTANCE.setRequestsPerMinute(requestsPerMinute);
+            UnirestInstance client = clients.computeIfAbsent(
+                getClientKey(registry, verifySsl, connectTimeout, readTimeout),
+                key -> RegistryClients.createClient(verifySsl, connectTimeout, readTimeout));
+            return ImageTag.hasTag(client, image, registry, user, password, tag);
+        }
+    }
+
+    /**
+     * The tags selected on the agent, in the order to offer them.
+     */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] tags;
+        private final String etag;
+        private final String lastModified;
+        private final boolean unchanged;
+
+        private Result(String[] tags, String etag, String lastModified, boolean unchanged) {
+            this.tags = tags;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.unchanged = unchanged;
+        }
+    }
+}
@@ -4,7 +4,8 @@ public enum Ordering {
     NATURAL("Natural Ordering"),
     REV_NATURAL("Reverse Natural Ordering"),
     DSC_VERSION("Descending Versions"),
-    ASC_VERSION("Ascending Versions");
+    ASC_VERSION("Ascending Versions"),
+    CREATED_DESC("Most Recently Created");
 
     public final String value;
 
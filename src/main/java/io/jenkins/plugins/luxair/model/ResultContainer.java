@@ -1,8 +1,11 @@
 package io.jenkins.plugins.luxair.model;
 
+import java.io.Serializable;
 import java.util.Optional;
 
-public class ResultContainer<V> {
+public class ResultContainer<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String errorMsg = null;
     private V value;
 
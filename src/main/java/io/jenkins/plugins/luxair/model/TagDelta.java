@@ -0,0 +1,38 @@
+package io.jenkins.plugins.luxair.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tags added to and removed from the tag list of an image when it last changed.
+ */
+public final class TagDelta {
+    private final List<String> added;
+    private final List<String> removed;
+    private final long changedAt;
+
+    public TagDelta(List<String> added, List<String> removed, long changedAt) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changedAt = changedAt;
+    }
+
+    public List<String> getAdded() {
+        return added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns when the change was noticed, in milliseconds since the epoch.
+     */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
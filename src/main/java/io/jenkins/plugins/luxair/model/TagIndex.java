@@ -0,0 +1,323 @@
+package io.jenkins.plugins.luxair.model;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import hudson.util.VersionNumber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only index of the tags of one image, supporting all {@link Ordering}s without parsing or comparing tags per
+ * view.
+ * <p>
+ * Tags are interned and kept in registry order. The natural and the version rank of every tag are each computed
+ * once, when an ordering first needs them: a view then only matches the filter against the raw tags and orders the
+ * survivors by a packed {@code long} key of rank and position. Tags which order equally keep their registry order,
+ * just like a stable sort would. With a limit, only the first tags are selected
+ * by a bounded heap instead of sorting all survivors. The natural order also lets two indexes be compared by a single
+ * merge, see {@link #diff(TagIndex)}. Instances can be shared between threads.
+ */
+public final class TagIndex {
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+    // version rank of a tag which is no version
+    private static final int NO_VERSION = -1;
+
+    private final String[] tags;
+    private volatile NaturalOrder naturalOrder;
+    private volatile int[] versionRanks;
+    private volatile Set<String> members;
+
+    private TagIndex(String[] tags) {
+        this.tags = tags;
+    }
+
+    public static TagIndex of(List<String> tags) {
+        String[] interned = new String[tags.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = INTERNER.intern(tags.get(i));
+        }
+        return new TagIndex(interned);
+    }
+
+    public int size() {
+        return tags.length;
+    }
+
+    /**
+     * Returns whether the index holds the given tag, by a hash lookup.
+     */
+    public boolean contains(String tag) {
+        Set<String> set = members;
+        if (set == null) {
+            set = new HashSet<>(Arrays.asList(tags));
+            members = set;
+        }
+        return set.contains(tag);
+    }
+
+    /**
+     * Returns all tags in registry order, as an unmodifiable view of the index.
+     */
+    public List<String> asList() {
+        return Collections.unmodifiableList(Arrays.asList(tags));
+    }
+
+    /**
+     * Returns the tags matching the filter in the given ordering, or only the first {@code limit} of them if the
+     * limit is positive.
+     *
+     * @throws IllegalArgumentException if a version ordering is requested and a matching tag is no version
+     */
+    public List<String> select(Pattern filter, Ordering ordering, int limit) {
+        return select(filter, ordering, limit, null);
+    }
+
+    /**
+     * Returns the tags matching the filter and containing the query in the given ordering, at most {@code limit}.
+     * Tags starting with the query are found by binary search in natural order; only if they don't fill the limit,
+     * all tags are scanned for the query.
+     *
+     * @throws IllegalArgumentException if a version ordering is requested and a matching tag is no version
+     */
+    public List<String> search(String query, Pattern filter, Ordering ordering, int limit) {
+        if (query.isEmpty()) {
+            return select(filter, ordering, limit);
+        }
+
+        int[] sorted = getNaturalOrder().sorted;
+        int from = 0;
+        int to = sorted.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (tags[sorted[mid]].compareTo(query) < 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        BitSet prefixed = new BitSet(tags.length);
+        Matcher matcher = filter.matcher("");
+        int matches = 0;
+        for (int i = from; i < sorted.length && tags[sorted[i]].startsWith(query); i++) {
+            prefixed.set(sorted[i]);
+            if (matcher.reset(tags[sorted[i]]).matches()) {
+                matches++;
+            }
+        }
+        if (matches >= limit) {
+            return select(filter, ordering, limit, prefixed);
+        }
+
+        BitSet containing = new BitSet(tags.length);
+        for (int i = 0; i < tags.length; i++) {
+            if (tags[i].contains(query)) {
+                containing.set(i);
+            }
+        }
+        return select(filter, ordering, limit, containing);
+    }
+
+    private List<String> select(Pattern filter, Ordering ordering, int limit, BitSet candidates) {
+        // orderings needing image metadata from the registry aren't known to the index and fall back to natural
+        boolean descending = ordering == Ordering.NATURAL || ordering == Ordering.DSC_VERSION
+            || ordering == Ordering.CREATED_DESC;
+        boolean versions = ordering == Ordering.DSC_VERSION || ordering == Ordering.ASC_VERSION;
+
+        int[] ranks = versions ? getVersionRanks() : getNaturalOrder().ranks;
+        long[] keys = new long[candidates != null ? candidates.cardinality() : tags.length];
+        int matches = 0;
+        Matcher matcher = filter.matcher("");
+        for (int i = next(candidates, 0); i >= 0 && i < tags.length; i = next(candidates, i + 1)) {
+            if (matcher.reset(tags[i]).matches()) {
+                if (ranks[i] == NO_VERSION) {
+                    throw new IllegalArgumentException("Tag " + tags[i] + " is no version");
+                }
+                int rank = descending ? Integer.MAX_VALUE - ranks[i] : ranks[i];
+                keys[matches++] = (long) rank << 32 | i;
+            }
+        }
+
+        int size = selectSmallest(keys, matches, limit);
+        String[] selected = new String[size];
+        for (int i = 0; i < size; i++) {
+            selected[i] = tags[(int) keys[i]];
+        }
+        return Collections.unmodifiableList(Arrays.asList(selected));
+    }
+
+    /**
+     * Moves the {@code limit} smallest of the first {@code count} keys to the front of the array in ascending order
+     * and returns their number. With a positive limit below {@code count}, the smallest keys are kept in a max-heap
+     * while scanning the others, so only {@code limit} keys are ever sorted.
+     */
+    private static int selectSmallest(long[] keys, int count, int limit) {
+        if (limit <= 0 || limit >= count) {
+            Arrays.sort(keys, 0, count);
+            return count;
+        }
+        for (int i = limit / 2 - 1; i >= 0; i--) {
+            siftDown(keys, i, limit);
+        }
+        for (int i = limit; i < count; i++) {
+            if (keys[i] < keys[0]) {
+                keys[0] = keys[i];
+                siftDown(keys, 0, limit);
+            }
+        }
+        Arrays.sort(keys, 0, limit);
+        return limit;
+    }
+
+    private static void siftDown(long[] heap, int position, int size) {
+        long key = heap[position];
+        int i = position;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= key) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    private static int next(BitSet candidates, int from) {
+        return candidates != null ? candidates.nextSetBit(from) : from;
+    }
+
+    /**
+     * Compares this index to the given previous one by merging both in natural order.
+     */
+    public TagDelta diff(TagIndex previous) {
+        int[] before = previous.getNaturalOrder().sorted;
+        int[] after = getNaturalOrder().sorted;
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            String old = i < before.length ? previous.tags[before[i]] : null;
+            String current = j < after.length ? tags[after[j]] : null;
+            int order = old == null ? 1 : current == null ? -1 : old.compareTo(current);
+            if (order <= 0) {
+                if (order < 0) {
+                    removed.add(old);
+                }
+                i = skip(previous.tags, before, i, old);
+            }
+            if (order >= 0) {
+                if (order > 0) {
+                    added.add(current);
+                }
+                j = skip(tags, after, j, current);
+            }
+        }
+        return new TagDelta(added, removed, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the position of the first tag after the duplicates of the given tag.
+     */
+    private static int skip(String[] tags, int[] sorted, int from, String tag) {
+        int next = from + 1;
+        while (next < sorted.length && tags[sorted[next]].equals(tag)) {
+            next++;
+        }
+        return next;
+    }
+
+    private NaturalOrder getNaturalOrder() {
+        NaturalOrder order = naturalOrder;
+        if (order == null) {
+            int[] sorted = sort(String::compareTo, tags);
+            order = new NaturalOrder(sorted, rank(String::compareTo, tags, sorted));
+            naturalOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the dense version rank of every tag, parsing each tag once per index, or {@link #NO_VERSION} for a
+     * tag which is no version.
+     */
+    private int[] getVersionRanks() {
+        int[] ranks = versionRanks;
+        if (ranks == null) {
+            VersionNumber[] versions = new VersionNumber[tags.length];
+            boolean[] invalid = new boolean[tags.length];
+            for (int i = 0; i < tags.length; i++) {
+                try {
+                    versions[i] = new VersionNumber(tags[i]);
+                } catch (RuntimeException e) {
+                    versions[i] = new VersionNumber("");
+                    invalid[i] = true;
+                }
+            }
+            ranks = rank(VersionNumber::compareTo, versions, sort(VersionNumber::compareTo, versions));
+            for (int i = 0; i < ranks.length; i++) {
+                if (invalid[i]) {
+                    ranks[i] = NO_VERSION;
+                }
+            }
+            versionRanks = ranks;
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the positions of the values in the given order, equal values in their original order.
+     */
+    private static <T> int[] sort(Comparator<T> order, T[] values) {
+        Integer[] positions = new Integer[values.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> order.compare(values[a], values[b]));
+
+        int[] sorted = new int[positions.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = positions[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the dense rank of every value in the given order, equal values sharing a rank.
+     */
+    private static <T> int[] rank(Comparator<T> order, T[] values, int[] sorted) {
+        int[] ranks = new int[values.length];
+        int rank = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0 && order.compare(values[sorted[i - 1]], values[sorted[i]]) != 0) {
+                rank++;
+            }
+            ranks[sorted[i]] = rank;
+        }
+        return ranks;
+    }
+
+    private static final class NaturalOrder {
+        private final int[] sorted;
+        private final int[] ranks;
+
+        private NaturalOrder(int[] sorted, int[] ranks) {
+            this.sorted = sorted;
+            this.ranks = ranks;
+        }
+    }
+}
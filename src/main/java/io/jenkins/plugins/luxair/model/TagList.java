@@ -0,0 +1,121 @@
+package io.jenkins.plugins.luxair.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The unfiltered tags of an image together with the validators ({@code ETag}, {@code Last-Modified}) the registry
+ * returned them with.
+ * <p>
+ * Filtered and ordered views of the tags are computed once and kept with the list, so a registry answering
+ * {@code 304 Not Modified} lets all parameters reuse their already filtered and sorted tags.
+ */
+public final class TagList {
+    private final TagIndex index;
+    private final List<String> tags;
+    private final String etag;
+    private final String lastModified;
+    private final Map<String, CompletableFuture<ResultContainer<List<String>>>> views = new ConcurrentHashMap<>();
+    private final Set<String> incompleteViews = ConcurrentHashMap.newKeySet();
+    private volatile TagDelta delta;
+
+    public TagList(List<String> tags, String etag, String lastModified) {
+        this.index = TagIndex.of(tags);
+        this.tags = index.asList();
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public static TagList empty() {
+        return new TagList(Collections.emptyList(), null, null);
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public TagIndex getIndex() {
+        return index;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the last change of the tags compared to the list this one replaced, or {@code null} if unknown.
+     */
+    public TagDelta getDelta() {
+        return delta;
+    }
+
+    public void setDelta(TagDelta delta) {
+        this.delta = delta;
+    }
+
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Returns the view computed for the given key, computing it on first access.
+     * The computed tag list must not be modified afterwards.
+     * <p>
+     * The view is computed by the first caller outside of the map, as it may take registry calls; concurrent callers
+     * of the same key wait for its result, callers of other keys are not held up.
+     */
+    public ResultContainer<List<String>> getView(String key, Supplier<ResultContainer<List<String>>> compute) {
+        CompletableFuture<ResultContainer<List<String>>> view = views.get(key);
+        if (view == null) {
+            CompletableFuture<ResultContainer<List<String>>> created = new CompletableFuture<>();
+            view = views.putIfAbsent(key, created);
+            if (view == null) {
+                try {
+                    ResultContainer<List<String>> result = compute.get();
+                    created.complete(result);
+                    return result;
+                } catch (RuntimeException | Error e) {
+                    views.remove(key, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return view.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks a view as incomplete, e.g. because metadata of some tags could not be fetched. It is still served until
+     * {@link #dropIncompleteViews()} is called.
+     */
+    public void markIncomplete(String key) {
+        incompleteViews.add(key);
+    }
+
+    /**
+     * Forgets the views marked incomplete, so the next request computes them again.
+     */
+    public void dropIncompleteViews() {
+        for (String key : incompleteViews) {
+            incompleteViews.remove(key);
+            views.remove(key);
+        }
+    }
+}
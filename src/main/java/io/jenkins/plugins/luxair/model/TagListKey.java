@@ -0,0 +1,79 @@
+package io.jenkins.plugins.luxair.model;
+
+import java.util.Objects;
+
+/**
+ * Identifies the unfiltered tag list of one image as seen through one registry login. The login is identified by a
+ * fingerprint of the resolved user and password, empty for anonymous access, never by the credential id alone.
+ * Tag lists filtered and ordered on an agent are identified by their view as well.
+ */
+public final class TagListKey {
+    private final String registry;
+    private final String image;
+    private final String credential;
+    private final boolean verifySsl;
+    private final String view;
+
+    public TagListKey(String registry, String image, String credential, boolean verifySsl) {
+        this(registry, image, credential, verifySsl, "");
+    }
+
+    public TagListKey(String registry, String image, String credential, boolean verifySsl, String view) {
+        this.registry = registry;
+        this.image = image;
+        this.credential = credential != null ? credential : "";
+        this.verifySsl = verifySsl;
+        this.view = view != null ? view : "";
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the fingerprint of the login, or an empty string for anonymous access.
+     */
+    public String getCredential() {
+        return credential;
+    }
+
+    public boolean isVerifySsl() {
+        return verifySsl;
+    }
+
+    /**
+     * Returns the filter, ordering and limit the tags were selected by, or an empty string for all tags.
+     */
+    public String getView() {
+        return view;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TagListKey that = (TagListKey) o;
+
+        return verifySsl == that.verifySsl
+            && Objects.equals(registry, that.registry)
+            && Objects.equals(image, that.image)
+            && credential.equals(that.credential)
+            && view.equals(that.view);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(registry, image, credential, verifySsl, view);
+    }
+
+    @Override
+    public String toString() {
+        return registry + "/" + image + " (credential='" + credential + "', verifySsl=" + verifySsl
+            + (view.isEmpty() ? "" : ", view='" + view.replace('\0', ' ') + "'") + ")";
+    }
+}
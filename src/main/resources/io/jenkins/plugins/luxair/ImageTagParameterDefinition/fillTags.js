@@ -0,0 +1,109 @@
+(function () {
+    // one batch request per job, shared by all image tag parameters on the page
+    var batches = {};
+    var lists = 0;
+
+    function getJson(url) {
+        return fetch(url, {
+            headers: crumb.wrap({}),
+        }).then(function (rsp) {
+            if (!rsp.ok) {
+                throw new Error(rsp.status + " " + rsp.statusText);
+            }
+            return rsp.json();
+        }).then(function (json) {
+            return json.data;
+        });
+    }
+
+    function loadTags(select) {
+        var batchUrl = select.getAttribute("data-fill-all-url");
+        if (!batches[batchUrl]) {
+            batches[batchUrl] = getJson(batchUrl).catch(function () {
+                return {};
+            });
+        }
+        return batches[batchUrl].then(function (all) {
+            // parameters not resolved within the batch deadline are loaded on their own
+            return all[select.getAttribute("data-param")] || getJson(select.getAttribute("data-fill-url"));
+        });
+    }
+
+    function fillList(list, image, tags) {
+        list.innerHTML = "";
+        tags.forEach(function (tag) {
+            var option = document.createElement("option");
+            option.value = tag;
+            option.label = image + ":" + tag;
+            list.appendChild(option);
+        });
+    }
+
+    // too many tags to list them all: replace the select by an input searching the tags as the user types
+    function toSearchBox(select, result, showError) {
+        var input = document.createElement("input");
+        input.type = "text";
+        input.name = select.name;
+        input.className = "jenkins-input image-tag-parameter-search";
+        input.style.minWidth = select.style.minWidth;
+        input.autocomplete = "off";
+        input.value = result.defaultTag || result.tags[0] || "";
+
+        var list = document.createElement("datalist");
+        list.id = "image-tag-parameter-" + (++lists);
+        input.setAttribute("list", list.id);
+        fillList(list, result.image, result.tags);
+
+        var searchUrl = select.getAttribute("data-search-url");
+        var timer = null;
+        var latest = 0;
+        input.addEventListener("input", function () {
+            clearTimeout(timer);
+            timer = setTimeout(function () {
+                var request = ++latest;
+                getJson(searchUrl + "&q=" + encodeURIComponent(input.value)).then(function (found) {
+                    // drop answers overtaken by a later query
+                    if (request === latest) {
+                        fillList(list, found.image, found.tags);
+                        showError(found.errorMsg);
+                    }
+                }).catch(function (e) {
+                    showError("Unable to search tags: " + e.message);
+                });
+            }, 250);
+        });
+
+        select.parentNode.replaceChild(input, select);
+        input.parentNode.insertBefore(list, input.nextSibling);
+    }
+
+    Behaviour.specify("select.image-tag-parameter", "image-tag-parameter", 0, function (select) {
+        var errorMsg = select.parentNode.parentNode.querySelector(".image-tag-parameter-error");
+
+        function showError(message) {
+            if (errorMsg) {
+                errorMsg.textContent = message;
+            }
+        }
+
+        loadTags(select).then(function (result) {
+            if (result.truncated && select.getAttribute("data-search-url")) {
+                toSearchBox(select, result, showError);
+                showError(result.errorMsg);
+                return;
+            }
+            var added = result.added || [];
+            select.innerHTML = "";
+            result.tags.forEach(function (tag) {
+                var option = document.createElement("option");
+                option.value = tag;
+                option.textContent = result.image + ":" + tag + (added.indexOf(tag) >= 0 ? " (new)" : "");
+                option.selected = tag === result.defaultTag;
+                select.appendChild(option);
+            });
+            showError(result.errorMsg);
+        }).catch(function (e) {
+            showError("Unable to load tags: " + e.message);
+        });
+    });
+})();
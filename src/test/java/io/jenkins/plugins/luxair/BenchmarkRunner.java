@@ -0,0 +1,38 @@
+package io.jenkins.plugins.luxair;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the JMH benchmarks of the tag processing, only on request:
+ * <pre>
+ * mvn test -Dbenchmark -Dtest=BenchmarkRunner
+ * </pre>
+ * {@code -Dbenchmark.include=TagFilterBenchmark.filterIndexed} narrows the benchmarks run by a regular expression.
+ * The results are written to {@code target/jmh-report.json}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = ".*")
+class BenchmarkRunner {
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+            .include(getClass().getPackage().getName() + ".*" + System.getProperty("benchmark.include", "Benchmark"))
+            .warmupIterations(2)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(3)
+            .measurementTime(TimeValue.seconds(2))
+            .timeUnit(TimeUnit.MICROSECONDS)
+            .forks(1)
+            .shouldFailOnError(true)
+            .resultFormat(ResultFormatType.JSON)
+            .result("target/jmh-report.json")
+            .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package io.jenkins.plugins.luxair;
+
+import io.jenkins.plugins.luxair.model.TagList;
+import io.jenkins.plugins.luxair.model.TagListKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageTagCacheStoreTest {
+
+    private static final String REGISTRY = "https://registry.example.com";
+    private static final TagListKey APP = new TagListKey(REGISTRY, "team/app", "", true);
+    private static final TagListKey DB = new TagListKey(REGISTRY, "team/db", "login", true);
+
+    @TempDir
+    File directory;
+
+    @Test
+    void restoresTagListsInNewInstance() {
+        ImageTagCacheStore store = new ImageTagCacheStore(directory);
+        store.put(APP, new TagList(Arrays.asList("1.0", "1.1"), "\"abc\"", null), 1000, false);
+        store.put(DB, new TagList(Arrays.asList("15", "16"), null, "Tue, 15 Oct 2024 10:00:00 GMT"), 2000, false);
+        store.put(APP, new TagList(Arrays.asList("1.0", "1.1", "1.2"), "\"def\"", null), 3000, false);
+
+        ImageTagCacheStore restored = new ImageTagCacheStore(directory);
+        ImageTagCacheStore.Stored app = restored.get(APP);
+        assertNotNull(app);
+        assertEquals(Arrays.asList("1.0", "1.1", "1.2"), app.tagList.getTags());
+        assertEquals("\"def\"", app.tagList.getEtag());
+        assertNull(app.tagList.getLastModified());
+        assertEquals(3000, app.fetchedAt);
+
+        ImageTagCacheStore.Stored db = restored.get(DB);
+        assertEquals(Arrays.asList("15", "16"), db.tagList.getTags());
+        assertEquals("Tue, 15 Oct 2024 10:00:00 GMT", db.tagList.getLastModified());
+        assertNull(restored.get(new TagListKey(REGISTRY, "team/app", "other-login", true)));
+    }
+
+    @Test
+    void touchesUnchangedTagLists() {
+        ImageTagCacheStore store = new ImageTagCacheStore(directory);
+        TagList tags = new TagList(Arrays.asList("1.0", "1.1"), "\"abc\"", null);
+        store.put(APP, tags, 1000, false);
+        store.put(APP, tags, 5000, true);
+        assertEquals(5000, store.get(APP).fetchedAt);
+
+        ImageTagCacheStore.Stored restored = new ImageTagCacheStore(directory).get(APP);
+        assertEquals(5000, restored.fetchedAt);
+        assertEquals(Arrays.asList("1.0", "1.1"), restored.tagList.getTags());
+    }
+
+    @Test
+    void recoversFromIncompleteRecord() throws Exception {
+        ImageTagCacheStore store = new ImageTagCacheStore(directory);
+        store.put(APP, new TagList(Arrays.asList("1.0", "1.1"), null, null), 1000, false);
+        File file = new File(directory, ImageTagCacheStore.getFileName(REGISTRY));
+        long complete = file.length();
+        store.put(DB, new TagList(Arrays.asList("15", "16", "17"), null, null), 2000, false);
+
+        // a crash while appending leaves part of the last record behind
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(complete + (file.length() - complete) / 2);
+        }
+
+        ImageTagCacheStore restored = new ImageTagCacheStore(directory);
+        assertEquals(Arrays.asList("1.0", "1.1"), restored.get(APP).tagList.getTags());
+        assertNull(restored.get(DB));
+        assertEquals(complete, file.length());
+
+        restored.put(DB, new TagList(Arrays.asList("15", "16", "17"), null, null), 3000, false);
+        ImageTagCacheStore reopened = new ImageTagCacheStore(directory);
+        assertEquals(Arrays.asList("15", "16", "17"), reopened.get(DB).tagList.getTags());
+        assertEquals(Arrays.asList("1.0", "1.1"), reopened.get(APP).tagList.getTags());
+    }
+
+    @Test
+    void skipsViews() {
+        ImageTagCacheStore store = new ImageTagCacheStore(directory);
+        TagListKey view = new TagListKey(REGISTRY, "team/app", "", true, "agent\0.*");
+        store.put(view, new TagList(Arrays.asList("1.0"), null, null), 1000, false);
+        assertNull(store.get(view));
+        assertNull(new ImageTagCacheStore(directory).get(APP));
+    }
+
+    @Test
+    void separatesRegistriesBySchemeInFileName() {
+        assertNotEquals(ImageTagCacheStore.getFileName("http://registry.example.com"),
+            ImageTagCacheStore.getFileName("https://registry.example.com"));
+    }
+}
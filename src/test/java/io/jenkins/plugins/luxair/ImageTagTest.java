@@ -0,0 +1,183 @@
+package io.jenkins.plugins.luxair;
+
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagIndex;
+import io.jenkins.plugins.luxair.model.TagList;
+import kong.unirest.UnirestInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageTagTest {
+
+    private static final String IMAGE = "team/app";
+    private static final List<String> TAGS = SyntheticTags.generate(SyntheticTags.Kind.MIXED, 25);
+
+    private MockRegistry registry;
+    private UnirestInstance client;
+    private UnirestInstance tagListClient;
+
+    @BeforeEach
+    void startRegistry() throws IOException {
+        registry = MockRegistry.start().withTags(IMAGE, TAGS);
+        client = RegistryClients.createClient(true, 10, 30);
+        tagListClient = RegistryClients.createTagListClient(true, 10, 30);
+    }
+
+    @AfterEach
+    void stopRegistry() {
+        client.shutDown();
+        tagListClient.shutDown();
+        registry.close();
+    }
+
+    @Test
+    void followsPages() {
+        TagList tags = getTags(3, 1000, null);
+        assertEquals(TAGS, tags.getTags());
+        // one request per page of three tags
+        assertEquals(9, registry.getTagListRequests());
+        assertEquals(1, registry.getTokenRequests());
+    }
+
+    @Test
+    void decompressesPages() {
+        List<String> compressed = getTags(10, 1000, null).getTags();
+        registry.withCompression(false);
+        assertEquals(TAGS, compressed);
+        assertEquals(TAGS, getTags(10, 1000, null).getTags());
+    }
+
+    @Test
+    void stopsAtMaxTags() {
+        assertEquals(TAGS.subList(0, 7), getTags(3, 7, null).getTags());
+        assertEquals(3, registry.getTagListRequests());
+    }
+
+    @Test
+    void reusesUnchangedTagList() {
+        registry.withEtags(true);
+        TagList first = getTags(100, 1000, null);
+        assertNotNull(first.getEtag());
+        assertSame(first, getTags(100, 1000, first));
+        assertEquals(1, registry.getNotModified());
+        // the token is cached between lookups
+        assertEquals(1, registry.getTokenRequests());
+
+        // validators of a list spanning several pages would only cover its first page
+        assertNull(getTags(10, 1000, null).getEtag());
+    }
+
+    @Test
+    void retriesThrottledRequests() {
+        registry.failNext(429, "1");
+        assertEquals(TAGS, getTags(100, 1000, null).getTags());
+    }
+
+    @Test
+    void answersBasicChallenge() {
+        registry.withBasicAuth("reader", "secret");
+        ResultContainer<TagList> result = ImageTag.getTagsFromRegistry(client, tagListClient, IMAGE,
+            registry.getUrl(), "reader", "secret", 10, 1000, null);
+        assertFalse(result.getErrorMsg().isPresent(), () -> result.getErrorMsg().get());
+        assertEquals(TAGS, result.getValue().getTags());
+        assertEquals(0, registry.getTokenRequests());
+
+        ResultContainer<TagList> rejected = ImageTag.getTagsFromRegistry(client, tagListClient, IMAGE,
+            registry.getUrl(), "reader", "wrong", 10, 1000, null);
+        assertTrue(rejected.getErrorMsg().isPresent());
+        assertTrue(rejected.getValue().getTags().isEmpty());
+    }
+
+    @Test
+    void reportsErrors() {
+        ResultContainer<TagList> result = ImageTag.getTagsFromRegistry(client, tagListClient, "team/none",
+            registry.getUrl(), "", "", 100, 1000, null);
+        assertTrue(result.getErrorMsg().isPresent());
+        assertTrue(result.getValue().getTags().isEmpty());
+    }
+
+    @Test
+    void checksTagWithSingleRequest() {
+        ResultContainer<Boolean> exists = ImageTag.hasTag(client, IMAGE, registry.getUrl(), "", "", TAGS.get(0));
+        assertFalse(exists.getErrorMsg().isPresent(), () -> exists.getErrorMsg().get());
+        assertTrue(exists.getValue());
+        assertEquals(0, registry.getTagListRequests());
+
+        ResultContainer<Boolean> missing = ImageTag.hasTag(client, IMAGE, registry.getUrl(), "", "", "no-such-tag");
+        assertFalse(missing.getErrorMsg().isPresent(), () -> missing.getErrorMsg().get());
+        assertFalse(missing.getValue());
+    }
+
+    @Test
+    void readsEncodedPages() throws IOException {
+        byte[] body = "{\"name\":\"team/app\",\"tags\":[\"1.0\",\"1.1\",\"latest\"],\"extra\":{\"a\":[1]}}"
+            .getBytes(StandardCharsets.UTF_8);
+        List<String> expected = Arrays.asList("1.0", "1.1", "latest");
+        assertEquals(expected, readTags(body, null, 100));
+        assertEquals(expected, readTags(body, "identity", 100));
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(body);
+        }
+        assertEquals(expected, readTags(gzip.toByteArray(), "gzip", 100));
+
+        ByteArrayOutputStream deflate = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(deflate)) {
+            out.write(body);
+        }
+        assertEquals(expected, readTags(deflate.toByteArray(), "deflate", 100));
+
+        assertEquals(expected.subList(0, 2), readTags(body, null, 2));
+        assertEquals(Collections.emptyList(), readTags("{\"tags\":null}".getBytes(StandardCharsets.UTF_8), null, 100));
+        assertThrows(IOException.class, () -> readTags(body, "br", 100));
+        assertThrows(IllegalStateException.class,
+            () -> readTags("[\"1.0\"]".getBytes(StandardCharsets.UTF_8), null, 100));
+    }
+
+    @Test
+    void appendsDefaultTagCutOffByMaxTags() {
+        TagIndex index = TagIndex.of(Arrays.asList("3", "2", "1", "stable"));
+        Pattern all = Pattern.compile(".*");
+        List<String> selected = Arrays.asList("3", "2");
+        assertEquals(Arrays.asList("3", "2", "1"), ImageTag.withDefaultTag(selected, index, all, 2, "1"));
+        assertEquals(selected, ImageTag.withDefaultTag(selected, index, all, 2, "2"));
+        assertEquals(selected, ImageTag.withDefaultTag(selected, index, all, 2, "4"));
+        assertEquals(selected, ImageTag.withDefaultTag(selected, index, Pattern.compile("\\d"), 2, "stable"));
+        assertEquals(selected, ImageTag.withDefaultTag(selected, index, all, 0, "1"));
+    }
+
+    private TagList getTags(int pageSize, int maxTags, TagList previous) {
+        ResultContainer<TagList> result = ImageTag.getTagsFromRegistry(client, tagListClient, IMAGE,
+            registry.getUrl(), "", "", pageSize, maxTags, previous);
+        assertFalse(result.getErrorMsg().isPresent(), () -> result.getErrorMsg().get());
+        return result.getValue();
+    }
+
+    private static List<String> readTags(byte[] body, String encoding, int maxTags) throws IOException {
+        List<String> tags = new ArrayList<>();
+        ImageTag.TagPage.readTags(new ByteArrayInputStream(body), encoding, maxTags, tags);
+        return tags;
+    }
+}
@@ -0,0 +1,328 @@
+package io.jenkins.plugins.luxair;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded registry speaking the parts of the distribution API the plugin uses: the {@code /v2/} auth probe with a
+ * bearer token realm or a basic challenge, paginated tag lists and manifest lookups.
+ * <p>
+ * Unlike a real registry it can be told to answer with {@code ETag}s and {@code 304 Not Modified}, to compress tag
+ * lists, to delay every response and to fail with given status codes and {@code Retry-After} headers. It counts the
+ * requests it served and the connections opened to it.
+ */
+class MockRegistry implements AutoCloseable {
+
+    private static final Pattern TAG_LIST = Pattern.compile("^/v2/(.+)/tags/list$");
+    private static final Pattern MANIFEST = Pattern.compile("^/v2/(.+)/manifests/([^/]+)$");
+    private static final String SERVICE = "mock-registry";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, List<String>> images = new ConcurrentHashMap<>();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger tagListRequests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger tokens = new AtomicInteger();
+
+    // the expected Authorization header in basic mode, null in bearer mode
+    private volatile String basicAuthorization;
+    private volatile boolean etags;
+    private volatile boolean compression = true;
+    private volatile long delayMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+
+    private MockRegistry() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    static MockRegistry start() throws IOException {
+        MockRegistry registry = new MockRegistry();
+        registry.server.start();
+        return registry;
+    }
+
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    MockRegistry withTags(String image, List<String> tags) {
+        images.put(image, new ArrayList<>(tags));
+        return this;
+    }
+
+    /**
+     * Challenges for basic authentication with the given login instead of asking for a bearer token.
+     */
+    MockRegistry withBasicAuth(String user, String password) {
+        this.basicAuthorization = "Basic " + Base64.getEncoder()
+            .encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Whether tag list pages carry an {@code ETag} and are answered {@code 304} for a matching
+     * {@code If-None-Match}.
+     */
+    MockRegistry withEtags(boolean etags) {
+        this.etags = etags;
+        return this;
+    }
+
+    /**
+     * Whether tag list pages are gzip compressed for clients accepting it.
+     */
+    MockRegistry withCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    MockRegistry withDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+        return this;
+    }
+
+    /**
+     * Fails the given share of all requests with the given status.
+     */
+    MockRegistry withErrorRate(double errorRate, int status) {
+        this.errorRate = errorRate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Fails the next request with the given status, and the given {@code Retry-After} header unless {@code null}.
+     * Consecutive calls fail consecutive requests.
+     */
+    MockRegistry failNext(int status, String retryAfter) {
+        failures.add(new Failure(status, retryAfter));
+        return this;
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getTagListRequests() {
+        return tagListRequests.get();
+    }
+
+    int getNotModified() {
+        return notModified.get();
+    }
+
+    int getTokenRequests() {
+        return tokenRequests.get();
+    }
+
+    /**
+     * Returns the number of connections opened to the registry, told apart by their client address and port.
+     */
+    int getConnections() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            connections.add(exchange.getRemoteAddress().toString());
+            requests.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            Failure failure = failures.poll();
+            if (failure != null) {
+                if (failure.retryAfter != null) {
+                    exchange.getResponseHeaders().set("Retry-After", failure.retryAfter);
+                }
+                send(exchange, failure.status, null);
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, errorStatus, null);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/token")) {
+                tokenRequests.incrementAndGet();
+                sendJson(exchange, "{\"token\":\"token-" + tokens.incrementAndGet() + "\",\"expires_in\":300}");
+                return;
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            String basic = basicAuthorization;
+            if (basic != null && !basic.equals(authorization)) {
+                exchange.getResponseHeaders().set("Www-Authenticate", "Basic realm=\"" + SERVICE + "\"");
+                send(exchange, 401, null);
+                return;
+            }
+            if (basic == null && (authorization == null || !authorization.startsWith("Bearer token-"))) {
+                exchange.getResponseHeaders().set("Www-Authenticate",
+                    "Bearer realm=\"" + getUrl() + "/token\",service=\"" + SERVICE + "\"");
+                send(exchange, 401, null);
+                return;
+            }
+            if (path.equals("/v2/")) {
+                sendJson(exchange, "{}");
+                return;
+            }
+
+            Matcher tagList = TAG_LIST.matcher(path);
+            if (tagList.matches()) {
+                serveTagList(exchange, tagList.group(1));
+                return;
+            }
+            Matcher manifest = MANIFEST.matcher(path);
+            if (manifest.matches()) {
+                List<String> tags = images.get(manifest.group(1));
+                if (tags != null && tags.contains(manifest.group(2))) {
+                    exchange.getResponseHeaders().set("Content-Type",
+                        "application/vnd.docker.distribution.manifest.v2+json");
+                    exchange.getResponseHeaders().set("Docker-Content-Digest",
+                        "sha256:" + Integer.toHexString(manifest.group(2).hashCode()));
+                    send(exchange, 200, "{\"schemaVersion\":2}".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    send(exchange, 404, null);
+                }
+                return;
+            }
+            send(exchange, 404, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serveTagList(HttpExchange exchange, String image) throws IOException {
+        tagListRequests.incrementAndGet();
+        List<String> tags = images.get(image);
+        if (tags == null) {
+            send(exchange, 404, null);
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int from = query.containsKey("last") ? tags.indexOf(query.get("last")) + 1 : 0;
+        int size = query.containsKey("n") ? Integer.parseInt(query.get("n")) : tags.size();
+        int to = Math.min(tags.size(), from + size);
+        List<String> page = tags.subList(from, to);
+
+        Headers headers = exchange.getResponseHeaders();
+        if (to < tags.size()) {
+            headers.set("Link", "</v2/" + image + "/tags/list?n=" + size + "&last="
+                + URLEncoder.encode(tags.get(to - 1), StandardCharsets.UTF_8) + ">; rel=\"next\"");
+        }
+        if (etags) {
+            String etag = "\"" + Integer.toHexString(page.hashCode()) + "-" + from + "\"";
+            headers.set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                send(exchange, 304, null);
+                return;
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\"name\":\"").append(image).append("\",\"tags\":[");
+        for (int i = 0; i < page.size(); i++) {
+            json.append(i > 0 ? "," : "").append('"').append(page.get(i).replace("\\", "\\\\").replace("\"", "\\\""))
+                .append('"');
+        }
+        json.append("]}");
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compression && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            headers.set("Content-Encoding", "gzip");
+        }
+        headers.set("Content-Type", "application/json");
+        send(exchange, 200, body);
+    }
+
+    private static void sendJson(HttpExchange exchange, String json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        boolean empty = body == null || body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, empty ? -1 : body.length);
+        if (!empty) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> values = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static final class Failure {
+        private final int status;
+        private final String retryAfter;
+
+        private Failure(int status, String retryAfter) {
+            this.status = status;
+            this.retryAfter = retryAfter;
+        }
+    }
+}
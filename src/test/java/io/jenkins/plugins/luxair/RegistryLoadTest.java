@@ -0,0 +1,100 @@
+package io.jenkins.plugins.luxair;
+
+import io.jenkins.plugins.luxair.model.Ordering;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load driver looking up the tags of one parameter from many threads against a {@link MockRegistry}, reporting the
+ * latency distribution, throughput and the connections opened to the registry. Runs only on request:
+ * <pre>
+ * mvn test -Dtest=RegistryLoadTest -DregistryLoad=true -DregistryLoad.threads=50 -DregistryLoad.delay=50
+ * </pre>
+ * The lookups go through the {@link ImageTagCache}, the pooled clients and the {@link RegistryThrottle} like the ones
+ * of the parameter page. With the default {@code cacheTtl} of {@code 0} every lookup queries the registry, concurrent
+ * lookups still share a single query.
+ */
+@WithJenkins
+@EnabledIfSystemProperty(named = "registryLoad", matches = "true")
+class RegistryLoadTest {
+
+    private static final String PREFIX = "registryLoad.";
+    private static final String IMAGE = "mock/app";
+    private static final int THREADS = Integer.getInteger(PREFIX + "threads", 50);
+    private static final int REQUESTS = Integer.getInteger(PREFIX + "requests", 2000);
+    private static final int TAGS = Integer.getInteger(PREFIX + "tags", 10000);
+    private static final int MAX_TAGS = Integer.getInteger(PREFIX + "maxTags", 100);
+    private static final int DELAY = Integer.getInteger(PREFIX + "delay", 20);
+    private static final int CACHE_TTL = Integer.getInteger(PREFIX + "cacheTtl", 0);
+    private static final int REQUESTS_PER_MINUTE = Integer.getInteger(PREFIX + "requestsPerMinute", 0);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty(PREFIX + "errorRate", "0"));
+    private static final int ERROR_STATUS = Integer.getInteger(PREFIX + "errorStatus", 503);
+    private static final boolean ETAGS = Boolean.parseBoolean(System.getProperty(PREFIX + "etags", "true"));
+    private static final Ordering ORDERING = Ordering.valueOf(System.getProperty(PREFIX + "ordering", "DSC_VERSION"));
+
+    @Test
+    void load(JenkinsRule j) throws Exception {
+        ImageTagParameterConfiguration config = ImageTagParameterConfiguration.get();
+        config.setCacheTtl(CACHE_TTL);
+        config.setRequestsPerMinute(REQUESTS_PER_MINUTE);
+
+        try (MockRegistry registry = MockRegistry.start()
+                 .withTags(IMAGE, SyntheticTags.generate(SyntheticTags.Kind.SEMVER, TAGS))
+                 .withEtags(ETAGS)
+                 .withDelay(DELAY)
+                 .withErrorRate(ERROR_RATE, ERROR_STATUS)) {
+            ImageTagParameterDefinition definition = new ImageTagParameterDefinition("IMAGE", "", IMAGE, ".*", "",
+                registry.getUrl(), "", ORDERING);
+            definition.setMaxTags(MAX_TAGS);
+
+            long[] latencies = new long[REQUESTS];
+            AtomicInteger failed = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> lookups = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                lookups.add(pool.submit(() -> {
+                    long begin = System.nanoTime();
+                    ResultContainer<List<String>> tags = definition.lookupTags(null);
+                    latencies[request] = System.nanoTime() - begin;
+                    if (tags.getErrorMsg().isPresent()) {
+                        failed.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            pool.shutdown();
+
+            Arrays.sort(latencies);
+            System.out.printf("%d lookups of %d tags from %d threads in %d ms: %.1f lookups/s%n",
+                REQUESTS, TAGS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                REQUESTS / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+            System.out.printf("latency p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d failed%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0), failed.get());
+            System.out.printf("registry: %d requests (%d tag list pages, %d not modified, %d tokens), "
+                    + "%d connections opened%n", registry.getRequests(), registry.getTagListRequests(),
+                registry.getNotModified(), registry.getTokenRequests(), registry.getConnections());
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[index] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,96 @@
+package io.jenkins.plugins.luxair;
+
+import kong.unirest.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistryThrottleTest {
+
+    private static final AtomicInteger registries = new AtomicInteger();
+
+    private final RegistryThrottle.Registry throttle =
+        RegistryThrottle.INSTANCE.forRegistry("https://throttle-" + registries.incrementAndGet() + ".example.com");
+
+    @AfterEach
+    void resetRate() {
+        RegistryThrottle.INSTANCE.setRequestsPerMinute(0);
+    }
+
+    @Test
+    void doesNotRetrySuccess() throws Exception {
+        throttle.acquire();
+        assertFalse(throttle.onResponse(200, new Headers(), 0));
+        assertFalse(throttle.onResponse(404, new Headers(), 0));
+    }
+
+    @Test
+    void retriesFailuresUpToMaxRetries() {
+        assertTrue(throttle.onResponse(503, new Headers(), 0));
+        assertTrue(throttle.onResponse(503, new Headers(), 1));
+        assertTrue(throttle.onResponse(502, new Headers(), 2));
+        assertFalse(throttle.onResponse(503, new Headers(), 3));
+    }
+
+    @Test
+    void waitsForRetryAfter() throws Exception {
+        Headers headers = new Headers();
+        headers.add("Retry-After", "1");
+        assertTrue(throttle.onResponse(429, headers, 0));
+        assertWaits(500, throttle);
+    }
+
+    @Test
+    void waitsForRateLimitReset() throws Exception {
+        Headers headers = new Headers();
+        headers.add("RateLimit-Remaining", "0;w=60");
+        headers.add("RateLimit-Reset", "1");
+        assertFalse(throttle.onResponse(200, headers, 0));
+        assertWaits(500, throttle);
+    }
+
+    @Test
+    void keepsConfiguredRate() throws Exception {
+        RegistryThrottle.INSTANCE.setRequestsPerMinute(60);
+        // a burst of a tenth of the minute's requests passes, the next one waits for a permit
+        for (int i = 0; i < 6; i++) {
+            throttle.acquire();
+        }
+        assertWaits(500, throttle);
+    }
+
+    @Test
+    void opensCircuitAfterRepeatedFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertFalse(throttle.onResponse(0, new Headers(), 0));
+        }
+        assertFalse(throttle.onResponse(503, new Headers(), 0));
+        assertThrows(RegistryThrottle.RegistryUnavailableException.class, throttle::acquire);
+    }
+
+    @Test
+    void stopsWaitingWhenInterrupted() {
+        Headers headers = new Headers();
+        headers.add("Retry-After", "5");
+        throttle.onResponse(429, headers, 0);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RegistryThrottle.RegistryUnavailableException.class, throttle::acquire);
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    private static void assertWaits(long millis, RegistryThrottle.Registry throttle) throws Exception {
+        long start = System.nanoTime();
+        throttle.acquire();
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waited >= millis, "waited only " + waited + "ms");
+    }
+}
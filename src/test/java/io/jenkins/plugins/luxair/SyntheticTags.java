@@ -0,0 +1,58 @@
+package io.jenkins.plugins.luxair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates reproducible tag lists shaped like the ones of real images, sorted lexically like registries list them.
+ */
+final class SyntheticTags {
+
+    enum Kind {
+        /** {@code 3.12.104} */
+        SEMVER,
+        /** {@code 20240115-1342} */
+        DATE,
+        /** {@code 3.12.104-9f2c3ab} */
+        SHA,
+        /** all of the above and a few floating tags like {@code latest} */
+        MIXED
+    }
+
+    private SyntheticTags() {
+    }
+
+    static List<String> generate(Kind kind, int count) {
+        Random random = new Random(31L * count + kind.ordinal());
+        Set<String> tags = new LinkedHashSet<>();
+        if (kind == Kind.MIXED && count >= 3) {
+            tags.add("latest");
+            tags.add("stable");
+            tags.add("edge");
+        }
+        while (tags.size() < count) {
+            Kind next = kind == Kind.MIXED ? Kind.values()[random.nextInt(Kind.MIXED.ordinal())] : kind;
+            tags.add(generate(next, random));
+        }
+        List<String> sorted = new ArrayList<>(tags);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static String generate(Kind kind, Random random) {
+        String semver = random.nextInt(20) + "." + random.nextInt(50) + "." + random.nextInt(200);
+        switch (kind) {
+            case DATE:
+                return String.format("20%02d%02d%02d-%02d%02d", 15 + random.nextInt(11), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+            case SHA:
+                return semver + "-" + String.format("%07x", random.nextInt(1 << 28));
+            default:
+                return semver;
+        }
+    }
+}
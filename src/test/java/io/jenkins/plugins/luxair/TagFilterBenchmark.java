@@ -0,0 +1,54 @@
+package io.jenkins.plugins.luxair;
+
+import io.jenkins.plugins.luxair.model.Ordering;
+import io.jenkins.plugins.luxair.model.ResultContainer;
+import io.jenkins.plugins.luxair.model.TagIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Filters and orders tag lists with {@link ImageTag#filterTags(TagIndex, Pattern, Ordering, int)}, once on a fresh
+ * index like after a download and once on an index already used for a view.
+ */
+@State(Scope.Benchmark)
+public class TagFilterBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    @Param({"SEMVER", "DATE", "SHA"})
+    public String kind;
+
+    @Param({"NATURAL", "REV_NATURAL", "ASC_VERSION", "DSC_VERSION"})
+    public Ordering ordering;
+
+    @Param({"0", "50"})
+    public int maxTags;
+
+    private final Pattern filter = Pattern.compile(".*");
+    private List<String> tags;
+    private TagIndex index;
+
+    @Setup
+    public void setUp() {
+        tags = SyntheticTags.generate(SyntheticTags.Kind.valueOf(kind), size);
+        index = TagIndex.of(tags);
+        ImageTag.filterTags(index, filter, ordering, maxTags);
+    }
+
+    @Benchmark
+    public ResultContainer<List<String>> filterFresh() {
+        return ImageTag.filterTags(TagIndex.of(tags), filter, ordering, maxTags);
+    }
+
+    @Benchmark
+    public ResultContainer<List<String>> filterIndexed() {
+        return ImageTag.filterTags(index, filter, ordering, maxTags);
+    }
+}
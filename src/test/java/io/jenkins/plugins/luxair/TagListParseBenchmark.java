@@ -0,0 +1,74 @@
+package io.jenkins.plugins.luxair;
+
+import kong.unirest.JsonNode;
+import kong.unirest.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Parses {@code /tags/list} bodies with the streaming parser of the tag list pages, plain and gzip compressed, and
+ * with a JSON tree for comparison.
+ */
+@State(Scope.Benchmark)
+public class TagListParseBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    @Param({"SEMVER", "DATE", "SHA"})
+    public String kind;
+
+    private byte[] body;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder json = new StringBuilder("{\"name\":\"mock/app\",\"tags\":[");
+        List<String> tags = SyntheticTags.generate(SyntheticTags.Kind.valueOf(kind), size);
+        for (int i = 0; i < tags.size(); i++) {
+            json.append(i > 0 ? "," : "").append('"').append(tags.get(i)).append('"');
+        }
+        body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        compressed = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<String> stream() throws IOException {
+        List<String> tags = new ArrayList<>();
+        ImageTag.TagPage.readTags(new ByteArrayInputStream(body), null, Integer.MAX_VALUE, tags);
+        return tags;
+    }
+
+    @Benchmark
+    public List<String> streamGzip() throws IOException {
+        List<String> tags = new ArrayList<>();
+        ImageTag.TagPage.readTags(new ByteArrayInputStream(compressed), "gzip", Integer.MAX_VALUE, tags);
+        return tags;
+    }
+
+    @Benchmark
+    public List<String> tree() {
+        JSONArray array = new JsonNode(new String(body, StandardCharsets.UTF_8)).getObject().getJSONArray("tags");
+        List<String> tags = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            tags.add(array.getString(i));
+        }
+        return tags;
+    }
+}
@@ -0,0 +1,52 @@
+package io.jenkins.plugins.luxair;
+
+import hudson.util.VersionNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses and compares tags as {@link VersionNumber}s, the cost behind the version orderings.
+ */
+@State(Scope.Benchmark)
+public class VersionNumberBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    @Param({"SEMVER", "DATE", "SHA"})
+    public String kind;
+
+    private List<String> tags;
+    private VersionNumber[] versions;
+
+    @Setup
+    public void setUp() {
+        tags = SyntheticTags.generate(SyntheticTags.Kind.valueOf(kind), size);
+        versions = new VersionNumber[tags.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = new VersionNumber(tags.get(i));
+        }
+    }
+
+    @Benchmark
+    public VersionNumber[] parse() {
+        VersionNumber[] parsed = new VersionNumber[tags.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = new VersionNumber(tags.get(i));
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public VersionNumber[] sort() {
+        VersionNumber[] sorted = versions.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
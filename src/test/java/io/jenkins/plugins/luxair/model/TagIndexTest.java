@@ -0,0 +1,90 @@
+package io.jenkins.plugins.luxair.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TagIndexTest {
+
+    private static final Pattern ALL = Pattern.compile(".*");
+    private static final TagIndex INDEX = TagIndex.of(Arrays.asList("1.10.0", "1.2.0", "2.0.0", "1.9.1", "latest-1"));
+
+    @Test
+    void selectsInEveryOrdering() {
+        assertEquals(Arrays.asList("latest-1", "2.0.0", "1.9.1", "1.2.0", "1.10.0"),
+            INDEX.select(ALL, Ordering.NATURAL, 0));
+        assertEquals(Arrays.asList("1.10.0", "1.2.0", "1.9.1", "2.0.0", "latest-1"),
+            INDEX.select(ALL, Ordering.REV_NATURAL, 0));
+        assertEquals(INDEX.select(ALL, Ordering.NATURAL, 0), INDEX.select(ALL, Ordering.CREATED_DESC, 0));
+
+        Pattern versions = Pattern.compile("\\d.*");
+        assertEquals(Arrays.asList("2.0.0", "1.10.0", "1.9.1", "1.2.0"),
+            INDEX.select(versions, Ordering.DSC_VERSION, 0));
+        assertEquals(Arrays.asList("1.2.0", "1.9.1", "1.10.0", "2.0.0"),
+            INDEX.select(versions, Ordering.ASC_VERSION, 0));
+    }
+
+    @Test
+    void selectsFirstTagsUpToLimit() {
+        Pattern versions = Pattern.compile("\\d.*");
+        for (Ordering ordering : Arrays.asList(Ordering.NATURAL, Ordering.REV_NATURAL, Ordering.DSC_VERSION,
+            Ordering.ASC_VERSION)) {
+            List<String> all = INDEX.select(versions, ordering, 0);
+            for (int limit = 1; limit <= all.size() + 1; limit++) {
+                assertEquals(all.subList(0, Math.min(limit, all.size())), INDEX.select(versions, ordering, limit),
+                    ordering + " limited to " + limit);
+            }
+        }
+    }
+
+    @Test
+    void keepsRegistryOrderOfEqualTags() {
+        // equal versions written differently
+        TagIndex index = TagIndex.of(Arrays.asList("1.0", "2", "1.0.0", "1", "2.0"));
+        assertEquals(Arrays.asList("2", "2.0", "1.0", "1.0.0", "1"), index.select(ALL, Ordering.DSC_VERSION, 0));
+        assertEquals(Arrays.asList("1.0", "1.0.0", "1"), index.select(ALL, Ordering.ASC_VERSION, 3));
+    }
+
+    @Test
+    void filtersOnRawTags() {
+        assertEquals(Collections.singletonList("latest-1"), INDEX.select(Pattern.compile("latest.*"),
+            Ordering.NATURAL, 0));
+        assertTrue(INDEX.select(Pattern.compile("none"), Ordering.DSC_VERSION, 5).isEmpty());
+    }
+
+    @Test
+    void searchesByPrefixThenByContent() {
+        TagIndex index = TagIndex.of(Arrays.asList("1.2.0", "1.2.1", "2.1.2", "1.3.0", "release-1.2"));
+        assertEquals(Arrays.asList("1.2.1", "1.2.0"), index.search("1.2", ALL, Ordering.NATURAL, 2));
+        assertEquals(Arrays.asList("release-1.2", "2.1.2", "1.2.1", "1.2.0"),
+            index.search("1.2", ALL, Ordering.NATURAL, 10));
+        assertEquals(Collections.singletonList("release-1.2"),
+            index.search("1.2", Pattern.compile("release-.*"), Ordering.NATURAL, 10));
+        assertEquals(index.select(ALL, Ordering.REV_NATURAL, 3), index.search("", ALL, Ordering.REV_NATURAL, 3));
+    }
+
+    @Test
+    void diffsIndexes() {
+        TagIndex before = TagIndex.of(Arrays.asList("a", "c", "c", "d"));
+        TagIndex after = TagIndex.of(Arrays.asList("e", "b", "d", "b", "c"));
+        TagDelta delta = after.diff(before);
+        assertEquals(Arrays.asList("b", "e"), delta.getAdded());
+        assertEquals(Collections.singletonList("a"), delta.getRemoved());
+        assertTrue(after.diff(after).isEmpty());
+        assertEquals(Arrays.asList("a", "c", "d"), TagIndex.of(Collections.emptyList()).diff(before).getRemoved());
+    }
+
+    @Test
+    void containsTags() {
+        assertTrue(INDEX.contains("1.9.1"));
+        assertFalse(INDEX.contains("1.9"));
+        assertEquals(5, INDEX.size());
+    }
+}